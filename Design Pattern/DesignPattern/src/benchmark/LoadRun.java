@@ -0,0 +1,164 @@
+package benchmark;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+// Runs the same timed loop on a number of threads released together by a start gate, and adds up what the threads did:
+// operations, bytes allocated inside the loops and the latencies the loops chose to record. The benchmarks of the pattern
+// packages only write the loop they measure.
+public final class LoadRun {
+    private static final ThreadMXBean THREAD_BEAN = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // The measured loop of one thread. Runs until the deadline, a System.nanoTime() value, and returns the operations done.
+    @FunctionalInterface
+    public interface Worker {
+        long run(int index, long deadline, Samples samples) throws InterruptedException;
+    }
+
+    private final String name;
+    private final int initialSamples;
+    private final int maxSamples;
+
+    // For loops which record no latencies.
+    public LoadRun(String name) {
+        this(name, 0, 0);
+    }
+
+    // Every thread starts with room for initialSamples latencies, allocated before the start gate, and grows up to maxSamples.
+    // Samples beyond that are dropped. Growing allocates inside the loop, so pass the same value twice when allocation matters.
+    public LoadRun(String name, int initialSamples, int maxSamples) {
+        if (initialSamples < 0 || maxSamples < initialSamples) {
+            throw new IllegalArgumentException("Invalid sample capacity " + initialSamples + ".." + maxSamples);
+        }
+        this.name = name;
+        this.initialSamples = initialSamples;
+        this.maxSamples = maxSamples;
+    }
+
+    // Runs the loop for half the duration first, which warms up the JIT and is thrown away, then measures it.
+    public Result warmedUp(int threads, long durationNanos, Worker worker) throws InterruptedException {
+        run(threads, durationNanos / 2, worker);
+        return run(threads, durationNanos, worker);
+    }
+
+    public Result run(int threads, long durationNanos, Worker worker) throws InterruptedException {
+        long[] operations = new long[threads];
+        long[] allocated = new long[threads];
+        Samples[] samples = new Samples[threads];
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            workers[t] = new Thread(() -> {
+                Samples own = new Samples(initialSamples, maxSamples);
+                samples[index] = own;
+                long id = Thread.currentThread().getId();
+                try {
+                    start.await();
+                    long before = THREAD_BEAN.getThreadAllocatedBytes(id);
+                    operations[index] = worker.run(index, System.nanoTime() + durationNanos, own);
+                    allocated[index] = THREAD_BEAN.getThreadAllocatedBytes(id) - before;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, name + "-" + t);
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : workers) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        long totaloperations = 0;
+        long totalallocated = 0;
+        int totalsamples = 0;
+        for (int t = 0; t < threads; t++) {
+            totaloperations += operations[t];
+            totalallocated += allocated[t];
+            totalsamples += samples[t].count;
+        }
+        long[] latencies = new long[totalsamples];
+        int offset = 0;
+        for (Samples own : samples) {
+            System.arraycopy(own.values, 0, latencies, offset, own.count);
+            offset += own.count;
+        }
+        Arrays.sort(latencies);
+        return new Result(totaloperations, totalallocated, elapsed, latencies);
+    }
+
+    // Latencies in nanoseconds recorded by one thread.
+    public static final class Samples {
+        private final int max;
+        private long[] values;
+        private int count;
+
+        private Samples(int capacity, int max) {
+            this.values = new long[capacity];
+            this.max = max;
+        }
+
+        public void add(long nanos) {
+            if (count == values.length) {
+                if (count >= max) {
+                    return;
+                }
+                values = Arrays.copyOf(values, (int) Math.min(max, Math.max(16, 2L * count)));
+            }
+            values[count++] = nanos;
+        }
+    }
+
+    // Totals of one run over all threads.
+    public static final class Result {
+        private final long operations;
+        private final long allocatedBytes;
+        private final long elapsedNanos;
+        private final long[] latencies;
+
+        private Result(long operations, long allocatedBytes, long elapsedNanos, long[] latencies) {
+            this.operations = operations;
+            this.allocatedBytes = allocatedBytes;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+        }
+
+        public long getOperations() {
+            return operations;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getOperationsPerSecond() {
+            return operations / (elapsedNanos / 1e9);
+        }
+
+        public double getAllocatedBytesPerSecond() {
+            return allocatedBytes / (elapsedNanos / 1e9);
+        }
+
+        public double getAllocatedBytesPerOperation() {
+            return operations == 0 ? 0 : (double) allocatedBytes / operations;
+        }
+
+        public int getSampleCount() {
+            return latencies.length;
+        }
+
+        // Latency at the given percentile between 0 and 1, 0 when nothing was recorded.
+        public long percentile(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            return latencies[(int) Math.min(latencies.length - 1, Math.round(percentile * (latencies.length - 1)))];
+        }
+    }
+}
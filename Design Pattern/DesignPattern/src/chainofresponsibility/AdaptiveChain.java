@@ -0,0 +1,275 @@
+package chainofresponsibility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram with power-of-two buckets: bucket b counts durations in [2^b, 2^(b+1)) nanoseconds.
+final class TimingHistogram {
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+    void record(long nanos) {
+        buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(Math.max(nanos, 1)));
+    }
+
+    public long count() {
+        long count = 0;
+        for (int b = 0; b < buckets.length(); b++) {
+            count += buckets.get(b);
+        }
+        return count;
+    }
+
+    // Upper bound of the bucket holding the given percentile, 0 when nothing was recorded.
+    public long percentile(double percentile) {
+        long count = count();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int b = 0; b < buckets.length(); b++) {
+            seen += buckets.get(b);
+            if (seen >= rank) {
+                return 1L << Math.min(b + 1, 62);
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "TimingHistogram [samples=%d, p50<=%dns, p99<=%dns, p999<=%dns]"
+                .formatted(count(), percentile(0.50), percentile(0.99), percentile(0.999));
+    }
+}
+
+// A compiled chain which learns the best order of its checks. Every check records how often it runs and rejects, and a
+// sample of calls is timed into a per-check histogram. Every few thousand timed requests the chain reorders the checks
+// so that the cheapest check most likely to reject runs first: for independent filters running them by ascending
+// cost / rejection rate minimizes the expected cost per request. Checks stay behind the checks they declare in
+// runsAfter(), and checks which are not reorderable keep their configured position relative to all others.
+// Reordering assumes the checks are side-effect free and independent; when several would reject a request, the result is
+// the rejection of whichever runs first in the current order.
+final class AdaptiveChain {
+    // one request in SAMPLE_MASK + 1 is timed, nanoTime on every call would cost more than the cheap checks themselves
+    private static final int SAMPLE_MASK = 15;
+    private static final int REORDER_EVERY_SAMPLES = 4096;
+    // weight of the newest window in the smoothed cost and rejection rate
+    private static final double SMOOTHING = 0.5;
+    private static final int MAX_CHECKS = 64;
+
+    // One check with its statistics.
+    private static final class Stage {
+        final AuthCheck check;
+        final int position;
+        // bit i set when the check configured at position i has to run first
+        long predecessors;
+        final LongAdder calls = new LongAdder();
+        final LongAdder rejections = new LongAdder();
+        final LongAdder timedCalls = new LongAdder();
+        final LongAdder timedNanos = new LongAdder();
+        final TimingHistogram histogram = new TimingHistogram();
+        // smoothed over the reorder windows, only touched while reordering
+        double cost = Double.NaN;
+        double rejectionRate = Double.NaN;
+
+        Stage(AuthCheck check, int position) {
+            this.check = check;
+            this.position = position;
+        }
+
+        String name() {
+            String name = check.getClass().getSimpleName();
+            return name.isEmpty() ? check.getClass().getName() : name;
+        }
+    }
+
+    private final Stage[] stages;
+    private volatile Stage[] order;
+    private final AtomicLong timedRequests = new AtomicLong();
+    private final LongAdder reorders = new LongAdder();
+
+    AdaptiveChain(List<? extends AuthCheck> checks) {
+        if (checks.size() > MAX_CHECKS) {
+            throw new IllegalArgumentException("An adaptive chain supports at most " + MAX_CHECKS + " checks");
+        }
+        stages = new Stage[checks.size()];
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new Stage(checks.get(i), i);
+        }
+        for (Stage stage : stages) {
+            for (Stage other : stages) {
+                if (stage.check.runsAfter().stream().anyMatch(type -> type.isInstance(other.check)) && other != stage) {
+                    stage.predecessors |= 1L << other.position;
+                }
+                // a fixed check stays behind everything configured before it and ahead of everything after it
+                if ((!stage.check.isReorderable() || !other.check.isReorderable()) && other.position < stage.position) {
+                    stage.predecessors |= 1L << other.position;
+                }
+            }
+        }
+        order = stages.clone();
+        // the configured order has to satisfy the declared constraints, otherwise no order does
+        for (Stage stage : stages) {
+            if ((stage.predecessors >>> stage.position) != 0) {
+                throw new IllegalArgumentException(stage.name() + " is configured before a check it has to run after");
+            }
+        }
+    }
+
+    public AuthResult handle(User requester) {
+        Stage[] current = order;
+        boolean timed = (ThreadLocalRandom.current().nextInt() & SAMPLE_MASK) == 0;
+        AuthResult result = AuthResult.GRANTED;
+        for (Stage stage : current) {
+            if (timed) {
+                long start = System.nanoTime();
+                result = stage.check.check(requester);
+                long elapsed = System.nanoTime() - start;
+                stage.timedCalls.increment();
+                stage.timedNanos.add(elapsed);
+                stage.histogram.record(elapsed);
+            } else {
+                result = stage.check.check(requester);
+            }
+            stage.calls.increment();
+            if (result != AuthResult.GRANTED) {
+                stage.rejections.increment();
+                break;
+            }
+        }
+        if (timed && timedRequests.incrementAndGet() % REORDER_EVERY_SAMPLES == 0) {
+            reorder();
+        }
+        return result;
+    }
+
+    // Folds the statistics of the last window in and picks the new order. Runs on a calling thread, rarely.
+    public synchronized void reorder() {
+        for (Stage stage : stages) {
+            long calls = stage.calls.sumThenReset();
+            long rejections = stage.rejections.sumThenReset();
+            long timedcalls = stage.timedCalls.sumThenReset();
+            long timednanos = stage.timedNanos.sumThenReset();
+            if (calls > 0) {
+                stage.rejectionRate = smooth(stage.rejectionRate, (double) rejections / calls);
+            }
+            if (timedcalls > 0) {
+                stage.cost = smooth(stage.cost, (double) timednanos / timedcalls);
+            }
+        }
+
+        // greedy topological order: among the checks whose predecessors have all run, take the lowest rank
+        Stage[] next = new Stage[stages.length];
+        long placed = 0;
+        for (int i = 0; i < next.length; i++) {
+            Stage best = null;
+            for (Stage stage : stages) {
+                boolean ready = (placed & (1L << stage.position)) == 0 && (stage.predecessors & ~placed) == 0;
+                if (ready && (best == null || rank(stage) < rank(best))) {
+                    best = stage;
+                }
+            }
+            next[i] = best;
+            placed |= 1L << best.position;
+        }
+        if (!Arrays.equals(next, order)) {
+            order = next;
+            reorders.increment();
+        }
+    }
+
+    // Names of the checks in the order they currently run.
+    public List<String> getOrder() {
+        List<String> names = new ArrayList<>();
+        for (Stage stage : order) {
+            names.add(stage.name());
+        }
+        return names;
+    }
+
+    // Timing histogram of every check, in configured order.
+    public Map<String, TimingHistogram> getHistograms() {
+        Map<String, TimingHistogram> histograms = new LinkedHashMap<>();
+        for (Stage stage : stages) {
+            histograms.put(stage.name(), stage.histogram);
+        }
+        return histograms;
+    }
+
+    public long getReorderCount() {
+        return reorders.sum();
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("AdaptiveChain [order=" + getOrder() + ", reorders=" + getReorderCount());
+        for (Stage stage : order) {
+            builder.append(String.format("%n  %-22s cost=%.0fns rejects=%.0f%% %s", stage.name(), stage.cost,
+                    stage.rejectionRate * 100, stage.histogram));
+        }
+        return builder.append("]").toString();
+    }
+
+    // Expected cost of running this check per request it rejects. Checks never measured go last, ties keep the configured order.
+    private static double rank(Stage stage) {
+        if (Double.isNaN(stage.cost) || Double.isNaN(stage.rejectionRate)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return stage.cost / Math.max(stage.rejectionRate, 1e-6);
+    }
+
+    private static double smooth(double previous, double current) {
+        return Double.isNaN(previous) ? current : previous + SMOOTHING * (current - previous);
+    }
+
+    // Traffic where most rejections come from the role check, usage: java chainofresponsibility.AdaptiveChain
+    public static void main(String[] args) {
+        HashedCredentialStore store = new HashedCredentialStore(10_000, new VerificationCache(1_000, 10, TimeUnit.MINUTES));
+        String[] names = {"admin", "alice", "bob", "carol"};
+        for (String name : names) {
+            store.addUser(name, name + "-pw");
+        }
+        User[] traffic = new User[1000];
+        for (int i = 0; i < traffic.length; i++) {
+            String name = names[i % names.length];
+            if (i % 20 == 0) {
+                traffic[i] = new User("nobody" + i, "x", "ADMIN");
+            } else {
+                // seven in ten requests carry valid credentials but not the ADMIN role
+                traffic[i] = new User(name, name + "-pw", i % 10 < 7 ? "USER" : "ADMIN");
+            }
+        }
+
+        AdaptiveChain adaptive = ChainCompiler.compileAdaptive(AuthBuilder.buildChain(store));
+        CompiledChain fixed = ChainCompiler.compile(AuthBuilder.buildChain(store));
+        System.out.println("Configured order: " + adaptive.getOrder());
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < 200; i++) {
+                for (User user : traffic) {
+                    fixed.handle(user);
+                }
+            }
+            long fixednanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < 200; i++) {
+                for (User user : traffic) {
+                    adaptive.handle(user);
+                }
+            }
+            long adaptivenanos = System.nanoTime() - start;
+            System.out.printf("Round %d: fixed order %.0f ns/request, adaptive %.0f ns/request, order %s%n", round + 1,
+                    fixednanos / 200_000.0, adaptivenanos / 200_000.0, adaptive.getOrder());
+        }
+        System.out.println(adaptive);
+    }
+}
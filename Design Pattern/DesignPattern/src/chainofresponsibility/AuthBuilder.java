@@ -0,0 +1,19 @@
+package chainofresponsibility;
+
+// Creating the Chain
+class AuthBuilder {
+    public static Handle buildChain() {
+        return buildChain(HashedCredentialStore.defaultStore());
+    }
+
+    // Chain which checks users and passwords against the given store
+    public static Handle buildChain(CredentialStore store) {
+        Handle usercheck = new UserCheckHandler(store);
+        Handle passwordcheck = new PasswordCheckHandler(store);
+        Handle rolecheck = new RoleCheckHandler();
+
+        usercheck.setNext(passwordcheck);
+        passwordcheck.setNext(rolecheck);
+        return usercheck;
+    }
+}
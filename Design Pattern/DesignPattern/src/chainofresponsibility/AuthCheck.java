@@ -0,0 +1,18 @@
+package chainofresponsibility;
+
+import java.util.Set;
+
+// One step of the chain as a pure check: GRANTED lets the request continue, anything else rejects it
+interface AuthCheck {
+    AuthResult check(User requester);
+
+    // Checks which have to run before this one whenever an AdaptiveChain reorders the chain
+    default Set<Class<? extends AuthCheck>> runsAfter() {
+        return Set.of();
+    }
+
+    // False for checks with side effects or which rely on their position, an AdaptiveChain never moves them
+    default boolean isReorderable() {
+        return true;
+    }
+}
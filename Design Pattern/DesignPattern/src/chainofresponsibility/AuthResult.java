@@ -0,0 +1,23 @@
+package chainofresponsibility;
+
+// Outcome of an authentication check, replaces printing so a chain can be evaluated without side effects
+enum AuthResult {
+    GRANTED("Access granted!"),
+    UNKNOWN_USER("User Does not Exists"),
+    INVALID_PASSWORD("Invalid password"),
+    INSUFFICIENT_ROLE("Access denied: insufficient role");
+
+    private final String message;
+
+    AuthResult(String message) {
+        this.message = message;
+    }
+
+    public boolean isGranted() {
+        return this == GRANTED;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
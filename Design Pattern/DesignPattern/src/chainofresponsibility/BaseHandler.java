@@ -0,0 +1,20 @@
+package chainofresponsibility;
+
+// Base Handler
+abstract class BaseHandler implements Handle {
+    protected Handle next;
+
+    //    Setting which next request can be handled.
+    @Override
+    public void setNext(Handle handler) {
+        this.next = handler;
+    }
+
+    // Handling the Request
+    @Override
+    public void handle(User requester) {
+        if (next != null) {
+            next.handle(requester);
+        }
+    }
+}
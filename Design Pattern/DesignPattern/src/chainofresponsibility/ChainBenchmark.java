@@ -0,0 +1,140 @@
+package chainofresponsibility;
+
+import benchmark.LoadRun;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+// Authentication checks per second and bytes allocated per check for the linked, printing chain and the compiled one.
+// The traffic mixes granted requests with rejections from each of the three handlers. A second part times a bulk audit
+// of a few million records, one request at a time against handleAll on one thread and on the ForkJoin pool.
+// Usage: java chainofresponsibility.ChainBenchmark [milliseconds per run]
+public class ChainBenchmark {
+    private static final long TARGET_CHECKS_PER_SECOND = 10_000_000;
+    private static final int[] THREADS = {1, 4};
+    private static final int BATCH_SIZE = 4_000_000;
+    private static final LoadRun LOAD = new LoadRun("chain");
+
+    public static void main(String[] args) throws InterruptedException {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 2_000;
+        User[] users = traffic(1024);
+        PrintStream console = System.out;
+        // the linked chain prints every step, a discarding stream keeps the terminal out of the measurement
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        // fixed in-memory credentials, so the numbers are the cost of the chain itself and not of password hashing
+        CredentialStore fixed = new CredentialStore() {
+            @Override
+            public boolean exists(String username) {
+                return username.equals("admin");
+            }
+
+            @Override
+            public boolean verify(String username, String password) {
+                return exists(username) && password.equals("1234");
+            }
+        };
+        Handle linked = AuthBuilder.buildChain(fixed);
+        CompiledChain compiled = ChainCompiler.compile(AuthBuilder.buildChain(fixed));
+        Function<User, AuthResult> linkedcall = user -> {
+            linked.handle(user);
+            return AuthResult.GRANTED;
+        };
+
+        console.printf("%-9s %7s %16s %10s%n", "chain", "threads", "checks/s", "B/check");
+        for (int threads : THREADS) {
+            report(console, "linked", threads, millis, users, linkedcall);
+            report(console, "compiled", threads, millis, users, compiled::handle);
+        }
+        System.setOut(console);
+
+        List<User> audit = Arrays.asList(traffic(BATCH_SIZE));
+        ForkJoinPool single = new ForkJoinPool(1);
+        console.printf("%nBulk audit of %,d records on %d cores%n", BATCH_SIZE, Runtime.getRuntime().availableProcessors());
+        for (int round = 0; round < 6; round++) {
+            long start = System.nanoTime();
+            AuthResult[] one = new AuthResult[BATCH_SIZE];
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                one[i] = compiled.handle(audit.get(i));
+            }
+            long perrequest = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            AuthResult[] sequential = compiled.handleAll(audit, single);
+            long batched = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            AuthResult[] parallel = compiled.handleAll(audit);
+            long forkjoin = System.nanoTime() - start;
+
+            // the first rounds warm up the JIT
+            if (round == 5) {
+                console.printf("per request %d ms, handleAll on one thread %d ms, handleAll on the common pool %d ms, results %s%n",
+                        perrequest / 1_000_000, batched / 1_000_000, forkjoin / 1_000_000,
+                        Arrays.equals(one, sequential) && Arrays.equals(one, parallel) ? "identical" : "DIFFERENT");
+                console.println(tally(parallel));
+            }
+        }
+        single.shutdown();
+    }
+
+    private static Map<AuthResult, Integer> tally(AuthResult[] results) {
+        Map<AuthResult, Integer> counts = new EnumMap<>(AuthResult.class);
+        for (AuthResult result : results) {
+            counts.merge(result, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static void report(PrintStream console, String name, int threads, long millis, User[] users,
+                               Function<User, AuthResult> chain) throws InterruptedException {
+        int[] granted = new int[threads];
+        LoadRun.Result result = LOAD.warmedUp(threads, millis * 1_000_000, (index, deadline, samples) -> {
+            long ops = 0;
+            int grants = 0;
+            do {
+                for (User user : users) {
+                    if (chain.apply(user) == AuthResult.GRANTED) {
+                        grants++;
+                    }
+                }
+                ops += users.length;
+            } while (System.nanoTime() < deadline);
+            // consuming the results keeps the JIT from dropping the checks
+            granted[index] = grants;
+            return ops;
+        });
+        console.printf("%-9s %7d %,16.0f %10.2f%s%n", name, threads, result.getOperationsPerSecond(),
+                result.getAllocatedBytesPerOperation(),
+                result.getOperationsPerSecond() >= TARGET_CHECKS_PER_SECOND ? "" : "  (below 10M/s)");
+    }
+
+    // Mostly valid logins, with every kind of rejection mixed in.
+    static User[] traffic(int count) {
+        User[] users = new User[count];
+        for (int i = 0; i < count; i++) {
+            switch (i % 8) {
+                case 0:
+                    users[i] = new User("guest" + i, "1234", "ADMIN");
+                    break;
+                case 1:
+                    users[i] = new User("admin", "wrong" + i, "ADMIN");
+                    break;
+                case 2:
+                case 3:
+                    users[i] = new User("admin", "1234", "USER");
+                    break;
+                default:
+                    users[i] = new User("admin", "1234", "ADMIN");
+                    break;
+            }
+        }
+        return users;
+    }
+}
@@ -0,0 +1,49 @@
+package chainofresponsibility;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+// Turns a configured handler chain or list of checks into a CompiledChain.
+final class ChainCompiler {
+    private ChainCompiler() {
+    }
+
+    public static CompiledChain compile(AuthCheck... checks) {
+        return new CompiledChain(checks);
+    }
+
+    public static CompiledChain compile(List<? extends AuthCheck> checks) {
+        return new CompiledChain(checks.toArray(new AuthCheck[0]));
+    }
+
+    // Follows the next links from the head, every handler on the way has to be an AuthCheck and none may appear twice.
+    public static CompiledChain compile(Handle head) {
+        return compile(flatten(head));
+    }
+
+    // Like compile, but the chain reorders its checks at runtime, see AdaptiveChain.
+    public static AdaptiveChain compileAdaptive(Handle head) {
+        return new AdaptiveChain(flatten(head));
+    }
+
+    private static List<AuthCheck> flatten(Handle head) {
+        List<AuthCheck> checks = new ArrayList<>();
+        // by identity, a handler may override equals
+        Set<Handle> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Handle handler = head;
+        while (handler != null) {
+            if (!visited.add(handler)) {
+                throw new IllegalArgumentException("Handler chain loops back to " + handler.getClass().getSimpleName());
+            }
+            if (!(handler instanceof AuthCheck)) {
+                throw new IllegalArgumentException(handler.getClass().getSimpleName() + " does not implement AuthCheck");
+            }
+            checks.add((AuthCheck) handler);
+            handler = handler instanceof BaseHandler ? ((BaseHandler) handler).next : null;
+        }
+        return checks;
+    }
+}
@@ -0,0 +1,97 @@
+package chainofresponsibility;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// A chain flattened into one array of checks. handle() is a single final method walking the array, so callers see one
+// monomorphic call instead of a linked list of virtual calls, nothing is printed and nothing is allocated per request.
+// The first check which does not grant decides the result.
+final class CompiledChain {
+    // requests evaluated stage by stage together, small enough to stay in cache across the stages
+    private static final int BLOCK = 1024;
+    // batches larger than this are split across the ForkJoin pool
+    private static final int PARALLEL_THRESHOLD = 16 * BLOCK;
+
+    private final AuthCheck[] checks;
+
+    CompiledChain(AuthCheck[] checks) {
+        this.checks = checks.clone();
+    }
+
+    public AuthResult handle(User requester) {
+        for (AuthCheck check : checks) {
+            AuthResult result = check.check(requester);
+            if (result != AuthResult.GRANTED) {
+                return result;
+            }
+        }
+        return AuthResult.GRANTED;
+    }
+
+    // Evaluates a batch and returns one result per requester, in the same order. Requests go through the checks a stage
+    // at a time: each check runs over a block of requests before the next check starts, and a request a stage rejected
+    // skips every later stage. Large batches are split across the common ForkJoin pool.
+    public AuthResult[] handleAll(List<User> requesters) {
+        return handleAll(requesters, ForkJoinPool.commonPool());
+    }
+
+    public AuthResult[] handleAll(List<User> requesters, ForkJoinPool pool) {
+        User[] batch = requesters.toArray(new User[0]);
+        AuthResult[] results = new AuthResult[batch.length];
+        if (batch.length <= PARALLEL_THRESHOLD) {
+            evaluate(batch, results, 0, batch.length);
+        } else {
+            pool.invoke(new BatchTask(batch, results, 0, batch.length));
+        }
+        return results;
+    }
+
+    public int length() {
+        return checks.length;
+    }
+
+    private void evaluate(User[] batch, AuthResult[] results, int from, int to) {
+        for (int start = from; start < to; start += BLOCK) {
+            int end = Math.min(start + BLOCK, to);
+            // GRANTED doubles as "still pending" until a stage rejects the request
+            Arrays.fill(results, start, end, AuthResult.GRANTED);
+            for (AuthCheck check : checks) {
+                for (int i = start; i < end; i++) {
+                    if (results[i] == AuthResult.GRANTED) {
+                        results[i] = check.check(batch[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    // Splits the batch in halves until a part is small enough to evaluate directly.
+    private final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final User[] batch;
+        private final AuthResult[] results;
+        private final int from;
+        private final int to;
+
+        BatchTask(User[] batch, AuthResult[] results, int from, int to) {
+            this.batch = batch;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                evaluate(batch, results, from, to);
+                return;
+            }
+            // split on a block boundary so no block is shared by two tasks
+            int middle = from + (to - from) / 2 / BLOCK * BLOCK;
+            invokeAll(new BatchTask(batch, results, from, middle), new BatchTask(batch, results, middle, to));
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package chainofresponsibility;
+
+// Where the handlers look up users and check passwords
+interface CredentialStore {
+    boolean exists(String username);
+
+    boolean verify(String username, String password);
+}
@@ -0,0 +1,15 @@
+package chainofresponsibility;
+
+import java.util.List;
+
+// Handler Interface
+interface Handle {
+    void setNext(Handle handler);
+
+    void handle(User requester);
+
+    // Evaluates many requesters at once without printing, see CompiledChain.handleAll
+    default AuthResult[] handleAll(List<User> requesters) {
+        return ChainCompiler.compile(this).handleAll(requesters);
+    }
+}
@@ -0,0 +1,135 @@
+package chainofresponsibility;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// Users with salted PBKDF2 password hashes. Hashing is slow on purpose, so every verification that succeeds is remembered
+// in a VerificationCache and a repeat login with the same password skips the hash until the entry expires.
+class HashedCredentialStore implements CredentialStore {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int DEFAULT_ITERATIONS = 100_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    // Salted hash of one user's password.
+    private static final class Credential {
+        final byte[] salt;
+        final byte[] hash;
+
+        Credential(byte[] salt, byte[] hash) {
+            this.salt = salt;
+            this.hash = hash;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Credential> users = new ConcurrentHashMap<>();
+    private final VerificationCache cache;
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    // Holder class so the demo store is only created, and its password hashed, when a handler first needs it
+    private static final class Holder {
+        static final HashedCredentialStore DEFAULT = new HashedCredentialStore(DEFAULT_ITERATIONS,
+                new VerificationCache(10_000, 5, TimeUnit.MINUTES));
+
+        static {
+            DEFAULT.addUser("admin", "1234");
+        }
+    }
+
+    public HashedCredentialStore(int iterations, VerificationCache cache) {
+        this.iterations = iterations;
+        this.cache = cache;
+    }
+
+    // Store with the demo admin account, used by handlers created without a store.
+    public static HashedCredentialStore defaultStore() {
+        return Holder.DEFAULT;
+    }
+
+    // Adds the user or replaces its password.
+    public void addUser(String username, String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        users.put(username, new Credential(salt, hash(password, salt)));
+        cache.invalidate(username);
+    }
+
+    public boolean removeUser(String username) {
+        boolean removed = users.remove(username) != null;
+        cache.invalidate(username);
+        return removed;
+    }
+
+    @Override
+    public boolean exists(String username) {
+        return users.containsKey(username);
+    }
+
+    @Override
+    public boolean verify(String username, String password) {
+        Credential credential = users.get(username);
+        if (credential == null) {
+            return false;
+        }
+        if (cache.contains(username, password, credential)) {
+            return true;
+        }
+        // constant-time comparison, the time taken says nothing about how much of the hash matched
+        boolean verified = MessageDigest.isEqual(credential.hash, hash(password, credential.salt));
+        if (verified) {
+            cache.put(username, password, credential);
+        }
+        return verified;
+    }
+
+    public VerificationCache getCache() {
+        return cache;
+    }
+
+    private byte[] hash(String password, byte[] salt) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // Times cold and cached logins and shows invalidation, usage: java chainofresponsibility.HashedCredentialStore
+    public static void main(String[] args) {
+        HashedCredentialStore store = new HashedCredentialStore(DEFAULT_ITERATIONS, new VerificationCache(1_000, 1, TimeUnit.MINUTES));
+        store.addUser("admin", "1234");
+        store.addUser("alice", "s3cret");
+        CompiledChain chain = ChainCompiler.compile(AuthBuilder.buildChain(store));
+        User admin = new User("admin", "1234", "ADMIN");
+
+        long start = System.nanoTime();
+        AuthResult result = chain.handle(admin);
+        System.out.printf("First login:  %s in %.3f ms%n", result, (System.nanoTime() - start) / 1e6);
+
+        int repeats = 100_000;
+        start = System.nanoTime();
+        for (int i = 0; i < repeats; i++) {
+            chain.handle(admin);
+        }
+        System.out.printf("Repeat login: %.3f us on average%n", (System.nanoTime() - start) / 1e3 / repeats);
+
+        start = System.nanoTime();
+        result = chain.handle(new User("admin", "wrong", "ADMIN"));
+        System.out.printf("Wrong password: %s in %.3f ms, never cached%n", result, (System.nanoTime() - start) / 1e6);
+
+        store.addUser("admin", "5678");
+        System.out.println("After password change, old password: " + chain.handle(admin));
+        System.out.println("New password: " + chain.handle(new User("admin", "5678", "ADMIN")));
+        System.out.println(store.getCache());
+    }
+}
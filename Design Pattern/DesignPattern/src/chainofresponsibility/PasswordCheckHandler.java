@@ -0,0 +1,38 @@
+package chainofresponsibility;
+
+import java.util.Set;
+
+class PasswordCheckHandler extends BaseHandler implements AuthCheck {
+    private final CredentialStore store;
+
+    public PasswordCheckHandler() {
+        this(HashedCredentialStore.defaultStore());
+    }
+
+    public PasswordCheckHandler(CredentialStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public AuthResult check(User requester) {
+        return store.verify(requester.getUsername(), requester.getPassword()) ? AuthResult.GRANTED : AuthResult.INVALID_PASSWORD;
+    }
+
+    // Hashing a password for a user who does not exist is wasted work
+    @Override
+    public Set<Class<? extends AuthCheck>> runsAfter() {
+        return Set.of(UserCheckHandler.class);
+    }
+
+    @Override
+    public void handle(User requester) {
+        AuthResult result = check(requester);
+        if (!result.isGranted()) {
+            System.out.println(result.getMessage());
+            return;
+        }
+
+        System.out.println("Password verified");
+        super.handle(requester);
+    }
+}
@@ -0,0 +1,21 @@
+package chainofresponsibility;
+
+class RoleCheckHandler extends BaseHandler implements AuthCheck {
+
+    @Override
+    public AuthResult check(User requester) {
+        return requester.getRole().equals("ADMIN") ? AuthResult.GRANTED : AuthResult.INSUFFICIENT_ROLE;
+    }
+
+    @Override
+    public void handle(User requester) {
+        AuthResult result = check(requester);
+        if (!result.isGranted()) {
+            System.out.println(result.getMessage());
+            return;
+        }
+
+        System.out.println("Role verified → Access granted!");
+        super.handle(requester);
+    }
+}
@@ -0,0 +1,26 @@
+package chainofresponsibility;
+
+// User Class DTO
+class User {
+    String username;
+    String role;
+    String password;
+
+    public User(String username, String password, String role) {
+        this.username = username;
+        this.password = password;
+        this.role = role;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+}
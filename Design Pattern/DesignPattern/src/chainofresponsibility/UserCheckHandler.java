@@ -0,0 +1,32 @@
+package chainofresponsibility;
+
+import java.util.List;
+
+// Concrete Handlers Means Actual Handlers which can be added as the List
+class UserCheckHandler extends BaseHandler implements AuthCheck {
+    private final CredentialStore store;
+
+    public UserCheckHandler() {
+        this(HashedCredentialStore.defaultStore());
+    }
+
+    public UserCheckHandler(CredentialStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public AuthResult check(User requester) {
+        return store.exists(requester.getUsername()) ? AuthResult.GRANTED : AuthResult.UNKNOWN_USER;
+    }
+
+    @Override
+    public void handle(User requester) {
+        AuthResult result = check(requester);
+        if (!result.isGranted()) {
+            System.out.println(result.getMessage());
+            return;
+        }
+        System.out.println("User Verified");
+        super.handle(requester);
+    }
+}
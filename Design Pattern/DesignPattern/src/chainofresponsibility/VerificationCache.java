@@ -0,0 +1,163 @@
+package chainofresponsibility;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Remembers recent successful password verifications so a repeat login skips the slow hash. Entries are keyed by a SHA-256
+// digest of the username and password, mixed with a random per-cache salt so the keys are useless outside this process,
+// and they expire after the TTL. The cache holds at most maxEntries: a ring remembers insertion order and the oldest entry
+// is dropped when its slot is reused. Only successes are cached, a wrong password always pays for the full check.
+final class VerificationCache {
+    // Digest of one username and password pair.
+    private static final class Key {
+        private final byte[] digest;
+        private final int hash;
+
+        Key(byte[] digest) {
+            this.digest = digest;
+            this.hash = Arrays.hashCode(digest);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(digest, ((Key) other).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        final Key key;
+        final String username;
+        // the stored credential the password was verified against, a changed password no longer matches it
+        final Object credential;
+        final long expiresAtNanos;
+
+        Entry(Key key, String username, Object credential, long expiresAtNanos) {
+            this.key = key;
+            this.username = username;
+            this.credential = credential;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required on every Java platform", e);
+        }
+    });
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Entry> insertions;
+    private final AtomicLong inserted = new AtomicLong();
+    private final long ttlNanos;
+    private final byte[] salt = new byte[16];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public VerificationCache(int maxEntries, long ttl, TimeUnit unit) {
+        this.insertions = new AtomicReferenceArray<>(maxEntries);
+        this.ttlNanos = unit.toNanos(ttl);
+        new SecureRandom().nextBytes(salt);
+    }
+
+    // True when this password was verified for this credential within the TTL.
+    boolean contains(String username, String password, Object credential) {
+        Key key = key(username, password);
+        Entry entry = entries.get(key);
+        if (entry == null || entry.credential != credential) {
+            misses.increment();
+            return false;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos > 0) {
+            if (entries.remove(key, entry)) {
+                expirations.increment();
+            }
+            misses.increment();
+            return false;
+        }
+        hits.increment();
+        return true;
+    }
+
+    void put(String username, String password, Object credential) {
+        Key key = key(username, password);
+        Entry entry = new Entry(key, username, credential, System.nanoTime() + ttlNanos);
+        entries.put(key, entry);
+        int slot = (int) (inserted.getAndIncrement() % insertions.length());
+        Entry oldest = insertions.getAndSet(slot, entry);
+        // only drop the old entry if it was not replaced or invalidated in the meantime
+        if (oldest != null && entries.remove(oldest.key, oldest)) {
+            evictions.increment();
+        }
+    }
+
+    // Drops every cached verification of the user, call it when the password changes or the account is locked.
+    public void invalidate(String username) {
+        entries.values().removeIf(entry -> entry.username.equals(username));
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        long hitcount = hits.sum();
+        long total = hitcount + misses.sum();
+        return total == 0 ? 0 : (double) hitcount / total;
+    }
+
+    // Entries dropped because the cache was full.
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    // Entries dropped because their TTL ran out.
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "VerificationCache [size=%d, hits=%d, misses=%d, hitRatio=%.2f, evictions=%d, expirations=%d]"
+                .formatted(size(), getHitCount(), getMissCount(), getHitRatio(), getEvictionCount(), getExpirationCount());
+    }
+
+    private Key key(String username, String password) {
+        MessageDigest sha256 = SHA256.get();
+        sha256.update(salt);
+        sha256.update(username.getBytes(StandardCharsets.UTF_8));
+        // separator so ("ab", "c") and ("a", "bc") differ
+        sha256.update((byte) 0);
+        sha256.update(password.getBytes(StandardCharsets.UTF_8));
+        return new Key(sha256.digest());
+    }
+}
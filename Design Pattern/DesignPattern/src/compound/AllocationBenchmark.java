@@ -0,0 +1,58 @@
+package compound;
+
+import com.sun.management.ThreadMXBean;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+// Measures the bytes allocated per log call on the calling thread once the JIT has warmed up, steady-state logging should report 0 B/op.
+public class AllocationBenchmark {
+    private static final int WARMUP = 2_000_000;
+    private static final int ITERATIONS = 1_000_000;
+
+    public static void main(String[] args) throws Exception {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Path dir = Files.createTempDirectory("logging-alloc");
+        PrintStream console = System.out;
+        // console sinks write into a discarding stream so the terminal does not dominate the run
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        FileLogger filelogger = new FileLogger(dir.resolve("app.log"), 64 * 1024, 1000);
+        BaseLogger rootlogger = new ApplicationLogger();
+        rootlogger.addLogger(new ConsoleLogger());
+        rootlogger.addLogger(filelogger);
+
+        BaseLogger[] sinks = {new ConsoleLogger(), new ApplicationLogger(), filelogger};
+        String[] names = {"ConsoleLogger", "ApplicationLogger", "FileLogger", "root composite"};
+        double[] results = new double[names.length];
+
+        for (int i = 0; i < sinks.length; i++) {
+            BaseLogger sink = sinks[i];
+            results[i] = measure(threads, message -> sink.write(message, LogLevel.INFO));
+        }
+        results[3] = measure(threads, rootlogger::loginfo);
+
+        filelogger.close();
+        System.setOut(console);
+        for (int i = 0; i < names.length; i++) {
+            System.out.printf("%-18s %8.2f B/op%n", names[i], results[i]);
+        }
+    }
+
+    private static double measure(ThreadMXBean threads, Consumer<String> call) {
+        long id = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            call.accept("Application Initiated");
+        }
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < ITERATIONS; i++) {
+            call.accept("Application Initiated");
+        }
+        long after = threads.getThreadAllocatedBytes(id);
+        return (double) (after - before) / ITERATIONS;
+    }
+}
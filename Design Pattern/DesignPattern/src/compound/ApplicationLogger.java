@@ -0,0 +1,15 @@
+package compound;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Concrete logger implementation that formats and outputs log messages with an application-specific prefix for identification.
+class ApplicationLogger extends BaseLogger {
+    private static final byte[] PREFIX = "App - ".getBytes(StandardCharsets.US_ASCII);
+
+    @Override
+    public void write(String message, LogLevel level) {
+        ByteBuffer line = LineEncoder.encodeToScratch(PREFIX, level, message, LineEncoder.LINE_SEPARATOR);
+        System.out.write(line.array(), 0, line.limit());
+    }
+}
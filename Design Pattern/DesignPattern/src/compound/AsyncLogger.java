@@ -0,0 +1,92 @@
+package compound;
+
+import java.util.function.Supplier;
+
+// Logger decorator that publishes events into a ring buffer and lets a dedicated thread run the composite sinks, so slow sinks never stall the calling thread.
+class AsyncLogger implements Logger, AutoCloseable {
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    private final BaseLogger rootlogger;
+    private final LogWorker worker;
+
+    public AsyncLogger(BaseLogger rootlogger, int capacity, WaitStrategy strategy) {
+        this.rootlogger = rootlogger;
+        this.worker = new LogWorker("async-logger", capacity, strategy, this::dispatch);
+        this.worker.start();
+    }
+
+    // Runs on the consumer thread, so formatting never happens on the caller thread.
+    private void dispatch(LogLevel level, String message, Object[] args) {
+        if (args == null) {
+            rootlogger.logMessage(message, level);
+        } else {
+            rootlogger.logFormatted(message, args, level);
+        }
+    }
+
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        return rootlogger.isEnabled(level);
+    }
+
+    @Override
+    public void logformatted(LogLevel level, String format, Object... args) {
+        if (rootlogger.admit(level, format)) {
+            worker.publish(level, format, args);
+        }
+    }
+
+    @Override
+    public void logsupplied(LogLevel level, Supplier<String> message) {
+        if (rootlogger.admit(level, BaseLogger.site(message))) {
+            worker.publish(level, message.get(), null);
+        }
+    }
+
+    @Override
+    public void loginfo(String message) {
+        if (rootlogger.admit(LogLevel.INFO, message)) {
+            worker.publish(LogLevel.INFO, message, null);
+        }
+    }
+
+    @Override
+    public void logerror(String message) {
+        if (rootlogger.admit(LogLevel.ERROR, message)) {
+            worker.publish(LogLevel.ERROR, message, null);
+        }
+    }
+
+    @Override
+    public void logwarning(String message) {
+        if (rootlogger.admit(LogLevel.WARNING, message)) {
+            worker.publish(LogLevel.WARNING, message, null);
+        }
+    }
+
+    @Override
+    public void logdebug(String message) {
+        if (rootlogger.admit(LogLevel.DEBUG, message)) {
+            worker.publish(LogLevel.DEBUG, message, null);
+        }
+    }
+
+    // Number of events discarded because the buffer was full (DROP strategy) or the logger was closed.
+    public long getDroppedCount() {
+        return worker.getDroppedCount();
+    }
+
+    // Number of events waiting to be written by the consumer thread.
+    public int getQueueDepth() {
+        return worker.getQueueDepth();
+    }
+
+    public int getCapacity() {
+        return worker.getCapacity();
+    }
+
+    @Override
+    public void close() {
+        worker.close(CLOSE_TIMEOUT_MILLIS);
+    }
+}
@@ -0,0 +1,198 @@
+package compound;
+
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Supplier;
+
+// Abstract base class that implements the Logger interface and provides common functionality for delegating log messages to multiple loggers using the Composite pattern.
+abstract class BaseLogger implements Logger {
+    public abstract void write(String message, LogLevel level);
+
+    protected LoggerCollection loggercollection = new LoggerCollection();
+
+    // Minimum level this logger accepts, DEBUG lets everything through.
+    private volatile LogLevel threshold = LogLevel.DEBUG;
+
+    // Set when every child runs on its own worker thread instead of the caller's.
+    private volatile FanOutDispatcher dispatcher;
+
+    // Optional throttling of noisy call sites, null when every event passes.
+    private volatile LogRateLimiter ratelimiter;
+    // periodic summary of the current limiter, cancelled when the limiter is replaced
+    private ScheduledFuture<?> ratelimitreport;
+
+    // Children can be added and removed at runtime, the lock only orders writers and is never taken while logging.
+    public synchronized void addLogger(BaseLogger logger) {
+        this.loggercollection.addLogger(logger);
+        if (dispatcher != null) {
+            dispatcher.add(logger);
+        }
+    }
+
+    public synchronized boolean removeLogger(BaseLogger logger) {
+        if (!this.loggercollection.removeLogger(logger)) {
+            return false;
+        }
+        if (dispatcher != null) {
+            dispatcher.remove(logger);
+        }
+        return true;
+    }
+
+    // Switches to parallel dispatch: each child gets its own bounded queue and worker, so one slow sink no longer delays the others.
+    public synchronized void enableFanOut(int capacity, WaitStrategy strategy) {
+        if (dispatcher != null) {
+            return;
+        }
+        FanOutDispatcher fanout = new FanOutDispatcher(loggercollection, capacity, strategy);
+        Runtime.getRuntime().addShutdownHook(new Thread(fanout::close, "fanout-shutdown"));
+        dispatcher = fanout;
+    }
+
+    // Per-sink queue depth, drops and lag while fan-out dispatch is enabled, empty otherwise.
+    public synchronized List<SinkMetrics> getSinkMetrics() {
+        return dispatcher == null ? List.of() : dispatcher.getMetrics();
+    }
+
+    // Suppressed events are reported through this logger as periodic summaries. Replaces the previous limiter and stops its
+    // summaries, null turns rate limiting off.
+    public synchronized void setRateLimiter(LogRateLimiter limiter) {
+        if (ratelimitreport != null) {
+            ratelimitreport.cancel(false);
+        }
+        ratelimitreport = limiter == null ? null : limiter.start((level, message) -> logMessage(message, level));
+        this.ratelimiter = limiter;
+    }
+
+    public void setLevel(LogLevel threshold) {
+        this.threshold = threshold;
+    }
+
+    public LogLevel getLevel() {
+        return threshold;
+    }
+
+    @Override
+    public boolean isEnabled(LogLevel level) {
+        return level.isAtLeast(threshold);
+    }
+
+    // Threshold and rate limit check done before any work, the site is the message or format pattern of the call.
+    boolean admit(LogLevel level, String site) {
+        if (!isEnabled(level)) {
+            return false;
+        }
+        LogRateLimiter limiter = this.ratelimiter;
+        return limiter == null || limiter.tryAcquire(level, site);
+    }
+
+    // The site of a lazy message is the lambda passed in, every lambda expression in the source compiles to its own class.
+    static String site(Supplier<String> message) {
+        return message.getClass().getName();
+    }
+
+    // Hands the message to every child logger, also used by AsyncLogger from its consumer thread.
+    void logMessage(String message, LogLevel level) {
+        FanOutDispatcher fanout = this.dispatcher;
+        if (fanout != null) {
+            fanout.publish(level, message, null);
+            return;
+        }
+        for (BaseLogger logger : this.loggercollection.snapshot()) {
+            logger.log(level, message);
+        }
+    }
+
+    // Hands a format pattern to every child. Sinks which store templates get the raw pattern, the others share one formatted String.
+    void logFormatted(String format, Object[] args, LogLevel level) {
+        FanOutDispatcher fanout = this.dispatcher;
+        if (fanout != null) {
+            fanout.publish(level, format, args);
+            return;
+        }
+        String message = null;
+        for (BaseLogger logger : this.loggercollection.snapshot()) {
+            if (!logger.isEnabled(level)) {
+                continue;
+            }
+            if (logger.writesTemplates()) {
+                logger.writeTemplate(format, args, level);
+            } else {
+                if (message == null) {
+                    message = format(format, args);
+                }
+                logger.write(message, level);
+            }
+        }
+    }
+
+    // Each child applies its own threshold, so a sink can be quieter than the root.
+    public void log(LogLevel level, String message) {
+        if (isEnabled(level)) {
+            write(message, level);
+        }
+    }
+
+    // Sinks return true when they store the pattern and its arguments instead of the formatted text.
+    protected boolean writesTemplates() {
+        return false;
+    }
+
+    public void writeTemplate(String format, Object[] args, LogLevel level) {
+        write(format(format, args), level);
+    }
+
+    // Formats like String.format but never throws: a pattern which does not fit its arguments is logged as it is, followed
+    // by the arguments, the same way BinaryLogDecoder shows it. A log call must not fail the code which makes it.
+    static String format(String format, Object[] args) {
+        try {
+            return String.format(format, args);
+        } catch (IllegalFormatException e) {
+            return format + " " + Arrays.toString(args);
+        }
+    }
+
+    @Override
+    public void logformatted(LogLevel level, String format, Object... args) {
+        if (admit(level, format)) {
+            logFormatted(format, args, level);
+        }
+    }
+
+    @Override
+    public void logsupplied(LogLevel level, Supplier<String> message) {
+        if (admit(level, site(message))) {
+            logMessage(message.get(), level);
+        }
+    }
+
+    @Override
+    public void logdebug(String message) {
+        if (admit(LogLevel.DEBUG, message)) {
+            logMessage(message, LogLevel.DEBUG);
+        }
+    }
+
+    @Override
+    public void logerror(String message) {
+        if (admit(LogLevel.ERROR, message)) {
+            logMessage(message, LogLevel.ERROR);
+        }
+    }
+
+    @Override
+    public void loginfo(String message) {
+        if (admit(LogLevel.INFO, message)) {
+            logMessage(message, LogLevel.INFO);
+        }
+    }
+
+    @Override
+    public void logwarning(String message) {
+        if (admit(LogLevel.WARNING, message)) {
+            logMessage(message, LogLevel.WARNING);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package compound;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Offline tool which turns BinaryLogger segments back into the "LEVEL - message" lines FileLogger writes.
+// Usage: java compound.BinaryLogDecoder [--timestamps] <segment file or directory>...
+public class BinaryLogDecoder {
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    private final boolean timestamps;
+
+    public BinaryLogDecoder(boolean timestamps) {
+        this.timestamps = timestamps;
+    }
+
+    // Decodes one segment, every segment carries the templates it uses so they can be decoded independently. A record the
+    // logger did not finish still has a 0 tag and ends the segment like the untouched tail does. A record cut off by the end
+    // of a truncated file, or one using a template never defined, ends it as well, after the last complete record.
+    public void decode(Path segmentpath, Writer out) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(segmentpath, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        byte[] magic = new byte[BinaryLogger.MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, BinaryLogger.MAGIC) || buffer.get() != BinaryLogger.VERSION) {
+            throw new IOException("Not a binary log segment: " + segmentpath);
+        }
+
+        Map<Integer, String> templates = new HashMap<>();
+        Map<Integer, Integer> templateflags = new HashMap<>();
+        long timestamp = 0;
+        int recordstart = buffer.position();
+        try {
+            while (buffer.hasRemaining()) {
+                recordstart = buffer.position();
+                int tag = buffer.get() & 0xFF;
+                if (tag == BinaryLogger.RECORD_END) {
+                    break;
+                } else if (tag == BinaryLogger.RECORD_TEMPLATE) {
+                    int id = (int) BinaryLogger.getVarint(buffer);
+                    templateflags.put(id, buffer.get() & 0xFF);
+                    templates.put(id, BinaryLogger.getText(buffer));
+                } else if ((tag & 0xF0) == BinaryLogger.RECORD_EVENT && (tag & 0x0F) < LEVELS.length) {
+                    LogLevel level = LEVELS[tag & 0x0F];
+                    timestamp += BinaryLogger.unzigzag(BinaryLogger.getVarint(buffer));
+                    int id = (int) BinaryLogger.getVarint(buffer);
+                    String template;
+                    int flags;
+                    if (id == BinaryLogger.INLINE_TEMPLATE) {
+                        flags = buffer.get() & 0xFF;
+                        template = BinaryLogger.getText(buffer);
+                    } else if (templates.containsKey(id)) {
+                        template = templates.get(id);
+                        flags = templateflags.get(id);
+                    } else {
+                        System.err.println("Undefined template " + id + " at offset " + recordstart + " in " + segmentpath
+                                + ", treated as truncated");
+                        break;
+                    }
+                    Object[] args = new Object[buffer.get() & 0xFF];
+                    for (int i = 0; i < args.length; i++) {
+                        args[i] = readArgument(buffer);
+                    }
+                    writeLine(out, timestamp, level, format(template, flags, args));
+                } else {
+                    throw new IOException("Corrupt record 0x%02x at offset %d in %s".formatted(tag, buffer.position() - 1, segmentpath));
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            // nothing of the cut off record was written, the lines before it are complete
+            System.err.println("Truncated record at offset " + recordstart + " in " + segmentpath + ", stopped there");
+        }
+    }
+
+    private void writeLine(Writer out, long timestamp, LogLevel level, String message) throws IOException {
+        if (timestamps) {
+            out.write(Instant.ofEpochMilli(timestamp).toString());
+            out.write(' ');
+        }
+        out.write(level.toString());
+        out.write(" - ");
+        out.write(message);
+        out.write('\n');
+    }
+
+    private static String format(String template, int flags, Object[] args) {
+        if ((flags & BinaryLogger.FLAG_FORMAT) == 0) {
+            return template;
+        }
+        return BaseLogger.format(template, args);
+    }
+
+    private static Object readArgument(ByteBuffer buffer) throws IOException {
+        int tag = buffer.get();
+        switch (tag) {
+            case BinaryLogger.ARG_NULL:
+                return null;
+            case BinaryLogger.ARG_INT:
+                return (int) BinaryLogger.unzigzag(BinaryLogger.getVarint(buffer));
+            case BinaryLogger.ARG_LONG:
+                return BinaryLogger.unzigzag(BinaryLogger.getVarint(buffer));
+            case BinaryLogger.ARG_FLOAT:
+                return buffer.getFloat();
+            case BinaryLogger.ARG_DOUBLE:
+                return buffer.getDouble();
+            case BinaryLogger.ARG_FALSE:
+                return Boolean.FALSE;
+            case BinaryLogger.ARG_TRUE:
+                return Boolean.TRUE;
+            case BinaryLogger.ARG_STRING:
+                return BinaryLogger.getText(buffer);
+            default:
+                throw new IOException("Unknown argument type " + tag);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean timestamps = false;
+        List<Path> segments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--timestamps")) {
+                timestamps = true;
+                continue;
+            }
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                List<Path> found = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, "*" + BinaryLogger.EXTENSION)) {
+                    stream.forEach(found::add);
+                }
+                // zero padded segment indexes make name order the write order
+                Collections.sort(found);
+                segments.addAll(found);
+            } else {
+                segments.add(path);
+            }
+        }
+        if (segments.isEmpty()) {
+            System.err.println("Usage: java compound.BinaryLogDecoder [--timestamps] <segment file or directory>...");
+            System.exit(1);
+        }
+
+        BinaryLogDecoder decoder = new BinaryLogDecoder(timestamps);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        for (Path segment : segments) {
+            decoder.decode(segment, out);
+        }
+        out.flush();
+    }
+}
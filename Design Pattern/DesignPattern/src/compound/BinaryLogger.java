@@ -0,0 +1,331 @@
+package compound;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Concrete logger implementation for high-volume tracing. Events are appended as compact binary records to memory-mapped
+// segment files: a timestamp delta, the level, an interned message-template id and the raw arguments. Writing an event is a
+// handful of stores into mapped memory instead of a write() syscall, BinaryLogDecoder turns segments back into text.
+//
+// Segment layout: MAGIC, VERSION, then records until a 0 byte (the untouched tail of the mapped file).
+//   template record: RECORD_TEMPLATE, varint id, flags, varint length, UTF-8 text (emitted once per segment per template)
+//   event record:    RECORD_EVENT | level ordinal, zigzag varint timestamp delta in ms, varint template id, argument count, arguments
+//                    template id 0 means the template follows inline (flags, varint length, UTF-8 text) because the table is full
+//   argument:        ARG_* tag followed by its payload
+// A record is committed by storing its tag byte last. Until then the tag slot still reads 0, so a record cut short by a crash
+// looks like the end of the segment instead of a record with a zeroed tail.
+class BinaryLogger extends BaseLogger implements Closeable {
+    static final byte[] MAGIC = {'B', 'L', 'O', 'G'};
+    static final byte VERSION = 1;
+    static final String EXTENSION = ".blog";
+
+    static final int RECORD_END = 0x00;
+    static final int RECORD_TEMPLATE = 0x01;
+    static final int RECORD_EVENT = 0x10;
+
+    static final int FLAG_FORMAT = 0x01;
+    static final int INLINE_TEMPLATE = 0;
+
+    static final int ARG_NULL = 0;
+    static final int ARG_INT = 1;
+    static final int ARG_LONG = 2;
+    static final int ARG_FLOAT = 3;
+    static final int ARG_DOUBLE = 4;
+    static final int ARG_FALSE = 5;
+    static final int ARG_TRUE = 6;
+    static final int ARG_STRING = 7;
+
+    // Upper bound of the template table, distinct messages beyond it are stored inline.
+    private static final int MAX_TEMPLATES = 4096;
+    // The argument count is stored in a single byte.
+    private static final int MAX_ARGUMENTS = 255;
+    private static final Object[] NO_ARGS = {};
+
+    private final Path directory;
+    private final String basename;
+    private final int segmentSize;
+    private final Map<String, Integer> literals = new HashMap<>();
+    private final Map<String, Integer> formats = new HashMap<>();
+    // which template ids were already defined in the current segment, so every segment decodes on its own
+    private final boolean[] defined = new boolean[MAX_TEMPLATES + 1];
+    private int nexttemplate = 1;
+    private int segmentindex;
+    private MappedByteBuffer segment;
+    private long lasttimestamp;
+    private boolean closed = false;
+    // events which arrived after close(), e.g. from other shutdown hooks, and were discarded
+    private long droppedAfterClose;
+
+    // Writes <basename>.NNNNNN.blog files of segmentSize bytes into the directory, continuing after any existing segments.
+    public BinaryLogger(Path directory, String basename, int segmentSize) {
+        this.directory = directory;
+        this.basename = basename;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            this.segmentindex = lastSegmentIndex() + 1;
+            openSegment();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "binary-logger-shutdown"));
+    }
+
+    @Override
+    protected boolean writesTemplates() {
+        return true;
+    }
+
+    @Override
+    public synchronized void write(String message, LogLevel level) {
+        append(level, message, 0, NO_ARGS);
+    }
+
+    @Override
+    public synchronized void writeTemplate(String format, Object[] args, LogLevel level) {
+        for (Object arg : args) {
+            if (argumentTag(arg) < 0 || args.length > MAX_ARGUMENTS) {
+                // the decoder could not rebuild this argument faithfully, store the formatted text instead
+                append(level, format(format, args), 0, NO_ARGS);
+                return;
+            }
+        }
+        append(level, format, FLAG_FORMAT, args);
+    }
+
+    public synchronized void flush() {
+        if (!closed) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        segment.force();
+        closed = true;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedAfterClose;
+    }
+
+    Path segmentPath(int index) {
+        return directory.resolve("%s.%06d%s".formatted(basename, index, EXTENSION));
+    }
+
+    private void append(LogLevel level, String template, int flags, Object[] args) {
+        if (closed) {
+            // the shutdown hook may close the logger while other threads still log, like FileLogger this must not fail them
+            droppedAfterClose++;
+            return;
+        }
+        int id = templateId(template, flags);
+        boolean define = id != INLINE_TEMPLATE && !defined[id];
+        int bound = eventBound(template, id, args) + (define ? templateBound(template) : 0);
+        if (bound + 1 > segment.remaining()) {
+            roll();
+            define = id != INLINE_TEMPLATE;
+            if (bound + 1 > segment.remaining()) {
+                throw new IllegalArgumentException("Log event does not fit into a segment of " + segmentSize + " bytes");
+            }
+        }
+        if (define) {
+            int tagposition = reserveTag();
+            putVarint(segment, id);
+            putText(segment, template, flags);
+            segment.put(tagposition, (byte) RECORD_TEMPLATE);
+            defined[id] = true;
+        }
+
+        long timestamp = System.currentTimeMillis();
+        int tagposition = reserveTag();
+        putVarint(segment, zigzag(timestamp - lasttimestamp));
+        lasttimestamp = timestamp;
+        putVarint(segment, id);
+        if (id == INLINE_TEMPLATE) {
+            putText(segment, template, flags);
+        }
+        segment.put((byte) args.length);
+        for (Object arg : args) {
+            putArgument(segment, arg);
+        }
+        segment.put(tagposition, (byte) (RECORD_EVENT | level.ordinal()));
+    }
+
+    // Skips the tag byte of the next record, it stays RECORD_END until the record is complete.
+    private int reserveTag() {
+        int position = segment.position();
+        segment.put((byte) RECORD_END);
+        return position;
+    }
+
+    private int templateId(String template, int flags) {
+        Map<String, Integer> table = (flags & FLAG_FORMAT) != 0 ? formats : literals;
+        Integer id = table.get(template);
+        if (id != null) {
+            return id;
+        }
+        if (nexttemplate > MAX_TEMPLATES) {
+            return INLINE_TEMPLATE;
+        }
+        table.put(template, nexttemplate);
+        return nexttemplate++;
+    }
+
+    private void openSegment() throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segmentindex),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        segment.put(MAGIC);
+        segment.put(VERSION);
+        lasttimestamp = 0;
+        Arrays.fill(defined, false);
+    }
+
+    private void roll() {
+        segment.force();
+        segmentindex++;
+        try {
+            openSegment();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private int lastSegmentIndex() throws IOException {
+        int last = -1;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, basename + ".*" + EXTENSION)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                String index = name.substring(basename.length() + 1, name.length() - EXTENSION.length());
+                try {
+                    last = Math.max(last, Integer.parseInt(index));
+                } catch (NumberFormatException e) {
+                    // not one of our segments
+                }
+            }
+        }
+        return last;
+    }
+
+    private static int eventBound(String template, int id, Object[] args) {
+        int bound = 1 + 10 + 5 + 1;
+        if (id == INLINE_TEMPLATE) {
+            bound += textBound(template);
+        }
+        for (Object arg : args) {
+            bound += arg instanceof String ? 1 + textBound((String) arg) : 1 + 10;
+        }
+        return bound;
+    }
+
+    private static int templateBound(String template) {
+        return 1 + 5 + textBound(template);
+    }
+
+    private static int textBound(String text) {
+        return 1 + 5 + text.length() * 3;
+    }
+
+    // ARG_* tag used for the argument, or -1 when the type cannot be stored.
+    private static int argumentTag(Object arg) {
+        if (arg == null) {
+            return ARG_NULL;
+        } else if (arg instanceof Integer) {
+            return ARG_INT;
+        } else if (arg instanceof Long) {
+            return ARG_LONG;
+        } else if (arg instanceof Float) {
+            return ARG_FLOAT;
+        } else if (arg instanceof Double) {
+            return ARG_DOUBLE;
+        } else if (arg instanceof Boolean) {
+            return (Boolean) arg ? ARG_TRUE : ARG_FALSE;
+        } else if (arg instanceof String) {
+            return ARG_STRING;
+        }
+        return -1;
+    }
+
+    private static void putArgument(ByteBuffer buffer, Object arg) {
+        int tag = argumentTag(arg);
+        buffer.put((byte) tag);
+        switch (tag) {
+            case ARG_INT:
+                putVarint(buffer, zigzag((Integer) arg));
+                break;
+            case ARG_LONG:
+                putVarint(buffer, zigzag((Long) arg));
+                break;
+            case ARG_FLOAT:
+                buffer.putFloat((Float) arg);
+                break;
+            case ARG_DOUBLE:
+                buffer.putDouble((Double) arg);
+                break;
+            case ARG_STRING:
+                String text = (String) arg;
+                putVarint(buffer, LineEncoder.utf8Length(text));
+                LineEncoder.putUtf8(text, buffer);
+                break;
+            default:
+                // null and booleans are fully described by their tag
+                break;
+        }
+    }
+
+    private static void putText(ByteBuffer buffer, String text, int flags) {
+        buffer.put((byte) flags);
+        putVarint(buffer, LineEncoder.utf8Length(text));
+        LineEncoder.putUtf8(text, buffer);
+    }
+
+    static void putVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static String getText(ByteBuffer buffer) {
+        byte[] bytes = new byte[(int) getVarint(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,14 @@
+package compound;
+
+import java.nio.ByteBuffer;
+
+// Concrete logger implementation that writes log messages to the console for real-time visibility of application events.
+class ConsoleLogger extends BaseLogger {
+    private static final byte[] PREFIX = {};
+
+    @Override
+    public void write(String message, LogLevel level) {
+        ByteBuffer line = LineEncoder.encodeToScratch(PREFIX, level, message, LineEncoder.LINE_SEPARATOR);
+        System.out.write(line.array(), 0, line.limit());
+    }
+}
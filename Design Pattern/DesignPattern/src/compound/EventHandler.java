@@ -0,0 +1,7 @@
+package compound;
+
+// Callback invoked by the consumer thread for every event taken out of the ring buffer.
+// The args are null for plain messages, otherwise the message is a String.format pattern still to be formatted.
+interface EventHandler {
+    void onEvent(LogLevel level, String message, Object[] args);
+}
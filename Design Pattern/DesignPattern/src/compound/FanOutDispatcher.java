@@ -0,0 +1,92 @@
+package compound;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Gives every child logger its own ring buffer and worker thread. Each sink sees events in the order they were published,
+// and a slow sink only backs up its own queue instead of delaying the others.
+final class FanOutDispatcher implements AutoCloseable {
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+
+    // One child logger together with the worker that feeds it.
+    private static final class SinkWorker {
+        final BaseLogger sink;
+        final String name;
+        final LogWorker worker;
+
+        SinkWorker(BaseLogger sink, int capacity, WaitStrategy strategy) {
+            this.sink = sink;
+            // anonymous sinks have no simple name
+            this.name = sink.getClass().getSimpleName().isEmpty() ? sink.getClass().getName() : sink.getClass().getSimpleName();
+            this.worker = new LogWorker("fanout-" + name, capacity, strategy, this::write);
+        }
+
+        // Runs on this sink's worker thread, so formatting is done in parallel per sink.
+        private void write(LogLevel level, String message, Object[] args) {
+            if (args == null) {
+                sink.write(message, level);
+            } else if (sink.writesTemplates()) {
+                sink.writeTemplate(message, args, level);
+            } else {
+                sink.write(String.format(message, args), level);
+            }
+        }
+    }
+
+    private final int capacity;
+    private final WaitStrategy strategy;
+    private final List<SinkWorker> workers = new CopyOnWriteArrayList<>();
+
+    FanOutDispatcher(Iterable<BaseLogger> sinks, int capacity, WaitStrategy strategy) {
+        this.capacity = capacity;
+        this.strategy = strategy;
+        for (BaseLogger sink : sinks) {
+            add(sink);
+        }
+    }
+
+    void add(BaseLogger sink) {
+        SinkWorker sinkworker = new SinkWorker(sink, capacity, strategy);
+        sinkworker.worker.start();
+        workers.add(sinkworker);
+    }
+
+    // Stops feeding the sink after draining what is already queued for it.
+    void remove(BaseLogger sink) {
+        for (SinkWorker sinkworker : workers) {
+            if (sinkworker.sink == sink) {
+                workers.remove(sinkworker);
+                sinkworker.worker.close(CLOSE_TIMEOUT_MILLIS);
+                return;
+            }
+        }
+    }
+
+    // Queues the event for every sink whose threshold lets it through.
+    void publish(LogLevel level, String message, Object[] args) {
+        for (SinkWorker sinkworker : workers) {
+            if (sinkworker.sink.isEnabled(level)) {
+                sinkworker.worker.publish(level, message, args);
+            }
+        }
+    }
+
+    List<SinkMetrics> getMetrics() {
+        List<SinkMetrics> metrics = new ArrayList<>();
+        for (SinkWorker sinkworker : workers) {
+            LogWorker worker = sinkworker.worker;
+            metrics.add(new SinkMetrics(sinkworker.name, worker.getQueueDepth(), worker.getDroppedCount(),
+                    worker.getFailedCount(), worker.getLastLagNanos(), worker.getMaxLagNanos()));
+        }
+        return metrics;
+    }
+
+    // Drains every queue before returning.
+    @Override
+    public void close() {
+        for (SinkWorker sinkworker : workers) {
+            sinkworker.worker.close(CLOSE_TIMEOUT_MILLIS);
+        }
+    }
+}
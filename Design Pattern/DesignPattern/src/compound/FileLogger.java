@@ -0,0 +1,332 @@
+package compound;
+
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Decides when a buffered FileLogger starts a new segment and how many compressed segments are kept.
+final class RollingPolicy {
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final int maxSegments;
+
+    // A zero maxBytes or maxAgeMillis disables that trigger, maxSegments caps the number of .gz files kept.
+    public RollingPolicy(long maxBytes, long maxAgeMillis, int maxSegments) {
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxSegments = maxSegments;
+    }
+
+    boolean shouldRoll(long currentSize, int incoming, long segmentStart, long now) {
+        if (currentSize == 0) {
+            return false;
+        }
+        return (maxBytes > 0 && currentSize + incoming > maxBytes)
+                || (maxAgeMillis > 0 && now - segmentStart >= maxAgeMillis);
+    }
+
+    int getMaxSegments() {
+        return maxSegments;
+    }
+}
+
+// Concrete logger implementation that persists log messages to a file for permanent record and future analysis of application behavior.
+class FileLogger extends BaseLogger implements Flushable, Closeable {
+    // Single daemon thread shared by all buffered file loggers for their time based flushes.
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "file-logger-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Rotated segments are gzipped here so the logging threads never wait on compression.
+    private static final ExecutorService COMPRESSOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "file-logger-compressor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final byte[] PREFIX = {};
+    // wait after a failed rotation before trying again, the active file keeps growing meanwhile
+    private static final long ROLL_RETRY_MILLIS = 1_000;
+
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final ScheduledFuture<?> flushtask;
+    private final RollingPolicy policy;
+    private FileChannel channel;
+    private long currentSize;
+    private long segmentStart;
+    private long nextRollAttempt;
+    private long rollErrors;
+    private boolean closed = false;
+    // failed writes to the channel, the unwritten bytes stay staged and are retried by the next drain
+    private long writeErrors;
+
+    // Simple mode: opens, appends to and closes ./app.log for every message.
+    public FileLogger() {
+        this.path = Path.of("./app.log");
+        this.buffer = null;
+        this.channel = null;
+        this.flushtask = null;
+        this.policy = null;
+    }
+
+    // Buffered mode: keeps one FileChannel open and stages the encoded messages in a reusable direct buffer,
+    // which is written out when it is full, every flushIntervalMillis, on flush() and on close().
+    public FileLogger(Path path, int bufferSize, long flushIntervalMillis) {
+        this(path, bufferSize, flushIntervalMillis, null);
+    }
+
+    // Buffered mode with rolling: the file is rotated according to the policy and old segments are gzipped in the background.
+    public FileLogger(Path path, int bufferSize, long flushIntervalMillis, RollingPolicy policy) {
+        this.path = path;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.policy = policy;
+        try {
+            openSegment();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.flushtask = FLUSHER.scheduleWithFixedDelay(this::flushBuffer, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        // everything staged in the buffer reaches the disk before the JVM exits
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "file-logger-shutdown"));
+    }
+
+    @Override
+    public void write(String message, LogLevel level) {
+        synchronized (this) {
+            if (channel == null || closed) {
+                // unbuffered mode, also the fallback for events which arrive after close()
+                appendDirect("%s - %s\n".formatted(level.toString(), message));
+                return;
+            }
+            int length = LineEncoder.encodedLength(PREFIX, level, message, LineEncoder.NEWLINE);
+            try {
+                if (shouldRoll(length)) {
+                    roll();
+                }
+                if (length > buffer.remaining()) {
+                    drain();
+                }
+                if (length > buffer.capacity()) {
+                    // oversized line, encoded through the calling thread's scratch buffer instead
+                    ByteBuffer line = LineEncoder.encodeToScratch(PREFIX, level, message, LineEncoder.NEWLINE);
+                    while (line.hasRemaining()) {
+                        channel.write(line);
+                    }
+                } else {
+                    // encoded straight into the staging buffer, no intermediate String or byte[]
+                    LineEncoder.encode(PREFIX, level, message, LineEncoder.NEWLINE, buffer);
+                }
+                currentSize += length;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    // Writes the staged bytes to the file and forces them to the storage device.
+    @Override
+    public synchronized void flush() {
+        if (channel == null || closed) {
+            return;
+        }
+        try {
+            drain();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null || closed) {
+            return;
+        }
+        flushtask.cancel(false);
+        try {
+            drain();
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            closed = true;
+        }
+    }
+
+    // Called by the flusher thread once the flush interval has elapsed.
+    private synchronized void flushBuffer() {
+        if (channel == null || closed) {
+            return;
+        }
+        try {
+            // lets the time trigger fire even when nothing is being logged
+            if (shouldRoll(0)) {
+                roll();
+            } else {
+                drain();
+            }
+        } catch (IOException e) {
+            // keep the periodic flush alive, the failure is counted and the staged bytes are retried on the next drain
+        }
+    }
+
+    // Rotations which failed, the logger kept appending to the active file instead.
+    public synchronized long getRollErrorCount() {
+        return rollErrors;
+    }
+
+    // Writes to the file which failed, whether they were retried successfully later or not.
+    public synchronized long getWriteErrorCount() {
+        return writeErrors;
+    }
+
+    private void openSegment() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        currentSize = channel.size();
+        segmentStart = System.currentTimeMillis();
+    }
+
+    private boolean shouldRoll(int incoming) {
+        long now = System.currentTimeMillis();
+        return policy != null && now >= nextRollAttempt && policy.shouldRoll(currentSize, incoming, segmentStart, now);
+    }
+
+    // Switches to a fresh segment. Runs under the logger lock, so no event can land between the old and the new file.
+    private void roll() throws IOException {
+        drain();
+        channel.force(true);
+        channel.close();
+
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        Path rolled;
+        int sequence = 0;
+        do {
+            rolled = path.resolveSibling("%s.%s-%03d".formatted(path.getFileName(), stamp, sequence++));
+        } while (Files.exists(rolled) || Files.exists(gzipPath(rolled)));
+        try {
+            move(path, rolled);
+        } catch (IOException e) {
+            recoverFromFailedRoll(e);
+            return;
+        }
+        Path segment = rolled;
+        COMPRESSOR.execute(() -> compress(segment));
+        try {
+            openSegment();
+        } catch (IOException e) {
+            recoverFromFailedRoll(e);
+        }
+    }
+
+    // The old channel is closed by now, so reopen the active file and retry the rotation later instead of failing every
+    // write from here on. When even that is impossible the logger falls back to opening the file for each message.
+    private void recoverFromFailedRoll(IOException cause) {
+        rollErrors++;
+        nextRollAttempt = System.currentTimeMillis() + ROLL_RETRY_MILLIS;
+        System.err.println("Could not rotate log file " + path + ": " + cause.getMessage());
+        long start = segmentStart;
+        try {
+            openSegment();
+            // the segment did not change, its age still counts from when it started
+            segmentStart = start;
+        } catch (IOException e) {
+            System.err.println("Could not reopen log file " + path + ", writing unbuffered: " + e.getMessage());
+            channel = null;
+            flushtask.cancel(false);
+        }
+    }
+
+    // Gzips a rotated segment and applies the retention cap, runs on the compressor thread.
+    private void compress(Path segment) {
+        Path target = gzipPath(segment);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (InputStream in = Files.newInputStream(segment);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                in.transferTo(out);
+            }
+            move(temp, target);
+            Files.delete(segment);
+            deleteExpiredSegments();
+        } catch (IOException e) {
+            // the uncompressed segment stays on disk, so no log data is lost
+            System.err.println("Could not compress log segment " + segment + ": " + e.getMessage());
+        }
+    }
+
+    private void deleteExpiredSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path.toAbsolutePath().getParent(), path.getFileName() + ".*.gz")) {
+            stream.forEach(segments::add);
+        }
+        // segment names embed their timestamp, so name order is age order
+        Collections.sort(segments);
+        for (int i = 0; i < segments.size() - policy.getMaxSegments(); i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private static Path gzipPath(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + ".gz");
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            writeErrors++;
+            throw e;
+        } finally {
+            // moves what was not written to the front and reopens the rest for encoding, so after a failed write nothing
+            // staged is overwritten and nothing written is written again; after a complete write it is just a clear
+            buffer.compact();
+        }
+    }
+
+    private void appendDirect(String line) {
+        try {
+            FileWriter writer = new FileWriter(path.toFile(), StandardCharsets.UTF_8, true);
+            writer.write(line);
+            writer.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package compound;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Encodes "[prefix]LEVEL - message<line end>" lines as UTF-8 straight into a byte buffer, without building intermediate Strings, so steady-state logging produces no garbage.
+final class LineEncoder {
+    static final byte[] NEWLINE = {'\n'};
+    static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    // Per-thread scratch buffer for sinks which are not guarded by a lock of their own (console output).
+    private static final ThreadLocal<ByteBuffer> SCRATCH = ThreadLocal.withInitial(() -> ByteBuffer.allocate(1024));
+
+    private LineEncoder() {
+    }
+
+    // Number of bytes encode() will write for this line.
+    static int encodedLength(byte[] prefix, LogLevel level, String message, byte[] lineEnd) {
+        return prefix.length + level.prefix().length + utf8Length(message) + lineEnd.length;
+    }
+
+    // Caller guarantees dst has encodedLength() bytes remaining.
+    static void encode(byte[] prefix, LogLevel level, String message, byte[] lineEnd, ByteBuffer dst) {
+        dst.put(prefix);
+        dst.put(level.prefix());
+        putUtf8(message, dst);
+        dst.put(lineEnd);
+    }
+
+    // Encodes the line into the calling thread's scratch buffer, which is returned flipped and ready to read.
+    static ByteBuffer encodeToScratch(byte[] prefix, LogLevel level, String message, byte[] lineEnd) {
+        int length = encodedLength(prefix, level, message, lineEnd);
+        ByteBuffer scratch = SCRATCH.get();
+        if (scratch.capacity() < length) {
+            // grows once for the longest message seen by this thread
+            scratch = ByteBuffer.allocate(Integer.highestOneBit(length) << 1);
+            SCRATCH.set(scratch);
+        }
+        scratch.clear();
+        encode(prefix, level, message, lineEnd, scratch);
+        scratch.flip();
+        return scratch;
+    }
+
+    static int utf8Length(String message) {
+        int length = 0;
+        for (int i = 0, n = message.length(); i < n; i++) {
+            char c = message.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(message.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    static void putUtf8(String message, ByteBuffer dst) {
+        for (int i = 0, n = message.length(); i < n; i++) {
+            char c = message.charAt(i);
+            if (c < 0x80) {
+                dst.put((byte) c);
+            } else if (c < 0x800) {
+                dst.put((byte) (0xC0 | (c >> 6)));
+                dst.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(message.charAt(i + 1))) {
+                int codepoint = Character.toCodePoint(c, message.charAt(++i));
+                dst.put((byte) (0xF0 | (codepoint >> 18)));
+                dst.put((byte) (0x80 | ((codepoint >> 12) & 0x3F)));
+                dst.put((byte) (0x80 | ((codepoint >> 6) & 0x3F)));
+                dst.put((byte) (0x80 | (codepoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate, replaced the same way String.getBytes(UTF_8) does
+                dst.put((byte) '?');
+            } else {
+                dst.put((byte) (0xE0 | (c >> 12)));
+                dst.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                dst.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package compound;
+
+// Preallocated slot of the ring buffer, reused for every event published into it.
+final class LogEvent {
+    volatile long sequence;
+    long published;
+    LogLevel level;
+    String message;
+    Object[] args;
+
+    LogEvent(long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,29 @@
+package compound;
+
+import java.nio.charset.StandardCharsets;
+
+// enum for Defining the Log Level
+enum LogLevel {
+    INFO(1),
+    WARNING(2),
+    DEBUG(0),
+    ERROR(3);
+
+    // Ordering used for thresholds, independent of the declaration order above.
+    private final int severity;
+
+    LogLevel(int severity) {
+        this.severity = severity;
+    }
+
+    boolean isAtLeast(LogLevel threshold) {
+        return this.severity >= threshold.severity;
+    }
+
+    // "LEVEL - " encoded once, so writing a line never converts the level to a String again
+    private final byte[] prefix = (name() + " - ").getBytes(StandardCharsets.US_ASCII);
+
+    byte[] prefix() {
+        return prefix;
+    }
+}
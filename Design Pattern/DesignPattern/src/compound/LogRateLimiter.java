@@ -0,0 +1,158 @@
+package compound;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Callback which receives the periodic "suppressed N similar messages" summaries.
+interface SummarySink {
+    void emit(LogLevel level, String message);
+}
+
+// Token-bucket rate limiting per call site and level, plus probabilistic sampling per level. A call site is identified by its
+// message or format pattern, so a logerror inside a tight loop is throttled without touching other messages. Suppressed
+// events are counted and reported periodically, so nothing disappears silently. Sites which have gone quiet are evicted, so
+// messages with changing text cannot fill the table for good.
+class LogRateLimiter {
+    private static final ScheduledExecutorService REPORTER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-rate-limiter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Distinct call sites tracked per level. When the table is full the quiet sites are evicted, and while every tracked site
+    // is still busy new ones share one bucket, so a flood of unique messages cannot grow the map.
+    private static final int MAX_SITES = 1024;
+    private static final String OTHER_SITES = "<other messages>";
+    // a full table is scanned for quiet sites at most this often per level
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // Generic cell rate algorithm: a single timestamp per bucket, updated with one CAS per admitted event.
+    private static final class Bucket {
+        final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+        final LongAdder suppressed = new LongAdder();
+
+        // True when the bucket would admit an event right now and has nothing left to report, dropping it loses at most
+        // the part of the burst the site already used.
+        boolean isQuiet(long tolerance, long now) {
+            long tat = theoreticalArrival.get();
+            return suppressed.sum() == 0 && (tat == Long.MIN_VALUE || tat - now <= tolerance);
+        }
+
+        boolean tryAcquire(long interval, long tolerance) {
+            long now = System.nanoTime();
+            while (true) {
+                long tat = theoreticalArrival.get();
+                long start = tat == Long.MIN_VALUE ? now : Math.max(tat, now);
+                if (start - now > tolerance) {
+                    suppressed.increment();
+                    return false;
+                }
+                if (theoreticalArrival.compareAndSet(tat, start + interval)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private final long summaryIntervalMillis;
+    private final LogLevel[] levels = LogLevel.values();
+    // indexed by LogLevel ordinal, a zero interval means the level is not rate limited
+    private final long[] intervals = new long[levels.length];
+    private final long[] tolerances = new long[levels.length];
+    private final double[] samplerates = new double[levels.length];
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ConcurrentHashMap<String, Bucket>[] sites = new ConcurrentHashMap[levels.length];
+    private final LongAdder[] sampledout = new LongAdder[levels.length];
+    private final AtomicLong[] nextsweep = new AtomicLong[levels.length];
+
+    public LogRateLimiter(long summaryIntervalMillis) {
+        this.summaryIntervalMillis = summaryIntervalMillis;
+        for (int i = 0; i < levels.length; i++) {
+            samplerates[i] = 1.0;
+            sites[i] = new ConcurrentHashMap<>();
+            sampledout[i] = new LongAdder();
+            nextsweep[i] = new AtomicLong(System.nanoTime());
+        }
+    }
+
+    // Lets at most permitsPerSecond events per call site through, with bursts of up to burst events.
+    public LogRateLimiter limit(LogLevel level, double permitsPerSecond, int burst) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        intervals[level.ordinal()] = interval;
+        tolerances[level.ordinal()] = interval * (burst - 1);
+        return this;
+    }
+
+    // Keeps roughly the given fraction of the events of this level, 1.0 keeps all of them.
+    public LogRateLimiter sample(LogLevel level, double rate) {
+        samplerates[level.ordinal()] = rate;
+        return this;
+    }
+
+    // Decides whether the event should be logged, called before the message is built.
+    boolean tryAcquire(LogLevel level, String site) {
+        int index = level.ordinal();
+        double rate = samplerates[index];
+        if (rate < 1.0 && ThreadLocalRandom.current().nextDouble() >= rate) {
+            sampledout[index].increment();
+            return false;
+        }
+        long interval = intervals[index];
+        if (interval == 0) {
+            return true;
+        }
+        return bucket(index, site).tryAcquire(interval, tolerances[index]);
+    }
+
+    // Starts the periodic summary, the sink is usually the logger this limiter is attached to. Cancel the returned task when
+    // the limiter is detached.
+    ScheduledFuture<?> start(SummarySink sink) {
+        return REPORTER.scheduleWithFixedDelay(() -> report(sink), summaryIntervalMillis, summaryIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private Bucket bucket(int index, String site) {
+        ConcurrentHashMap<String, Bucket> map = sites[index];
+        Bucket bucket = map.get(site);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (map.size() >= MAX_SITES) {
+            long now = System.nanoTime();
+            long due = nextsweep[index].get();
+            if (now - due >= 0 && nextsweep[index].compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+                evictQuiet(map, tolerances[index], now);
+            }
+            if (map.size() >= MAX_SITES) {
+                site = OTHER_SITES;
+            }
+        }
+        return map.computeIfAbsent(site, key -> new Bucket());
+    }
+
+    private static void evictQuiet(ConcurrentHashMap<String, Bucket> map, long tolerance, long now) {
+        map.values().removeIf(bucket -> bucket.isQuiet(tolerance, now));
+    }
+
+    private void report(SummarySink sink) {
+        for (int i = 0; i < levels.length; i++) {
+            for (var entry : sites[i].entrySet()) {
+                long suppressed = entry.getValue().suppressed.sumThenReset();
+                if (suppressed > 0) {
+                    sink.emit(levels[i], "suppressed %d similar messages: %s".formatted(suppressed, entry.getKey()));
+                }
+            }
+            // a bucket back at its full burst behaves exactly like a new one, dropping it keeps the table small
+            evictQuiet(sites[i], 0, System.nanoTime());
+            long sampled = sampledout[i].sumThenReset();
+            if (sampled > 0) {
+                sink.emit(levels[i], "sampled out %d %s messages".formatted(sampled, levels[i]));
+            }
+        }
+    }
+}
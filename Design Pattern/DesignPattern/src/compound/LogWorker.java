@@ -0,0 +1,161 @@
+package compound;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Owns a ring buffer together with the dedicated thread that drains it into an EventHandler.
+final class LogWorker implements Runnable {
+    private static final int BATCH_SIZE = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final RingBuffer buffer;
+    private final WaitStrategy strategy;
+    private final EventHandler handler;
+    private final Thread thread;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean running = true;
+    private volatile boolean sleeping = false;
+    // set by the consumer under the worker lock once it has drained everything and exits
+    private boolean finished = false;
+
+    LogWorker(String name, int capacity, WaitStrategy strategy, EventHandler handler) {
+        this.buffer = new RingBuffer(capacity);
+        this.strategy = strategy;
+        this.handler = handler;
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    // Called by the logging threads, returns false when the event was dropped.
+    boolean publish(LogLevel level, String message, Object[] args) {
+        if (!running) {
+            dropped.increment();
+            return false;
+        }
+        long position;
+        while ((position = buffer.offer(level, message, args)) < 0) {
+            if (!running) {
+                // closed while waiting for a slot, the consumer may already be gone
+                dropped.increment();
+                return false;
+            }
+            switch (strategy) {
+                case DROP:
+                    dropped.increment();
+                    return false;
+                case SPIN:
+                    Thread.onSpinWait();
+                    break;
+                case BLOCK:
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                    break;
+            }
+        }
+        if (!running) {
+            // closed while publishing: the consumer may have exited before the event landed
+            return delivered(position);
+        }
+        if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    // Slow path of a publish which raced with close(). The consumer only exits under the lock once the buffer is empty,
+    // so after it finished an event it did not take is stranded for good and counts as dropped.
+    private synchronized boolean delivered(long position) {
+        LockSupport.unpark(thread);
+        while (!finished && !buffer.isConsumed(position)) {
+            try {
+                wait(IDLE_PARK_NANOS / 1_000_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (buffer.isConsumed(position)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    @Override
+    public void run() {
+        do {
+            drainUntilStopped();
+        } while (!finish());
+    }
+
+    // Exits only when nothing is left, a producer which published after the last drain sees finished and counts its event.
+    private synchronized boolean finish() {
+        if (buffer.size() > 0) {
+            return false;
+        }
+        finished = true;
+        notifyAll();
+        return true;
+    }
+
+    private void drainUntilStopped() {
+        while (running || buffer.size() > 0) {
+            int drained;
+            try {
+                drained = buffer.drain(handler, BATCH_SIZE);
+            } catch (RuntimeException e) {
+                // one broken sink must not kill the consumer thread
+                failed.increment();
+                continue;
+            }
+            if (drained == 0) {
+                sleeping = true;
+                if (buffer.size() == 0 && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                sleeping = false;
+            }
+        }
+    }
+
+    // Stops accepting events, drains what is already queued and waits for the consumer to finish.
+    void close(long timeoutMillis) {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    long getFailedCount() {
+        return failed.sum();
+    }
+
+    int getQueueDepth() {
+        return buffer.size();
+    }
+
+    int getCapacity() {
+        return buffer.capacity();
+    }
+
+    long getLastLagNanos() {
+        return buffer.lastLagNanos();
+    }
+
+    long getMaxLagNanos() {
+        return buffer.maxLagNanos();
+    }
+}
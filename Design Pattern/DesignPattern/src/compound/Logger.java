@@ -0,0 +1,55 @@
+package compound;
+
+import java.util.function.Supplier;
+
+// Defines the contract for logging with different severity levels to ensure consistent logging interface across implementations.
+interface Logger {
+    void loginfo(String message);
+
+    void logerror(String message);
+
+    void logwarning(String message);
+
+    void logdebug(String message);
+
+    // True when events of this level pass the logger's threshold, checked before any message is built.
+    boolean isEnabled(LogLevel level);
+
+    // Formats the message with String.format only if the level is enabled.
+    void logformatted(LogLevel level, String format, Object... args);
+
+    // Builds the message only if the event passes the threshold and any rate limit.
+    void logsupplied(LogLevel level, Supplier<String> message);
+
+    default void loginfo(Supplier<String> message) {
+        logsupplied(LogLevel.INFO, message);
+    }
+
+    default void logerror(Supplier<String> message) {
+        logsupplied(LogLevel.ERROR, message);
+    }
+
+    default void logwarning(Supplier<String> message) {
+        logsupplied(LogLevel.WARNING, message);
+    }
+
+    default void logdebug(Supplier<String> message) {
+        logsupplied(LogLevel.DEBUG, message);
+    }
+
+    default void loginfo(String format, Object... args) {
+        logformatted(LogLevel.INFO, format, args);
+    }
+
+    default void logerror(String format, Object... args) {
+        logformatted(LogLevel.ERROR, format, args);
+    }
+
+    default void logwarning(String format, Object... args) {
+        logformatted(LogLevel.WARNING, format, args);
+    }
+
+    default void logdebug(String format, Object... args) {
+        logformatted(LogLevel.DEBUG, format, args);
+    }
+}
@@ -0,0 +1,51 @@
+package compound;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Manages a collection of loggers and provides iteration capability to apply logging operations across multiple logger instances.
+// Loggers live in an immutable snapshot array which is replaced with a CAS on every change, so they can be added and removed
+// while other threads are logging without locks and without ConcurrentModificationException.
+class LoggerCollection implements Iterable<BaseLogger> {
+    private static final BaseLogger[] EMPTY = {};
+
+    private final AtomicReference<BaseLogger[]> loggers = new AtomicReference<>(EMPTY);
+
+    public void addLogger(BaseLogger logger) {
+        BaseLogger[] current;
+        BaseLogger[] updated;
+        do {
+            current = this.loggers.get();
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = logger;
+        } while (!this.loggers.compareAndSet(current, updated));
+    }
+
+    // Returns false when the logger was not part of the collection.
+    public boolean removeLogger(BaseLogger logger) {
+        BaseLogger[] current;
+        BaseLogger[] updated;
+        do {
+            current = this.loggers.get();
+            int index = Arrays.asList(current).indexOf(logger);
+            if (index < 0) {
+                return false;
+            }
+            updated = new BaseLogger[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, index);
+            System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        } while (!this.loggers.compareAndSet(current, updated));
+        return true;
+    }
+
+    // Current loggers, the returned array is never modified and must not be modified by the caller.
+    BaseLogger[] snapshot() {
+        return this.loggers.get();
+    }
+
+    @Override
+    public Iterator<BaseLogger> iterator() {
+        return Arrays.asList(this.loggers.get()).iterator();
+    }
+}
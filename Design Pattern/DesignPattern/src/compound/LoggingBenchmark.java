@@ -0,0 +1,118 @@
+package compound;
+
+import benchmark.LoadRun;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+// Throughput, latency and allocation baseline for the compound logging pipeline. Every scenario logs through a root logger
+// from 1, 4 and 16 threads, once with the event passing the threshold and once with it filtered out by the root.
+// All output goes to a temporary directory, console sinks included, so it runs the same on any Linux box.
+// Usage: java compound.LoggingBenchmark [seconds per run]
+public class LoggingBenchmark {
+    private static final int[] THREADS = {1, 4, 16};
+    // every n-th call is timed individually for the latency percentiles
+    private static final int LATENCY_SAMPLE_EVERY = 16;
+    private static final int MAX_SAMPLES_PER_THREAD = 1 << 18;
+
+    private static final String MESSAGE = "Application Initiated";
+
+    // samples are preallocated, growing them would show up in the allocation rate
+    private static final LoadRun LOAD = new LoadRun("benchmark", MAX_SAMPLES_PER_THREAD, MAX_SAMPLES_PER_THREAD);
+
+    private final Path directory;
+    private final long durationNanos;
+
+    public LoggingBenchmark(Path directory, long durationMillis) {
+        this.directory = directory;
+        this.durationNanos = durationMillis * 1_000_000;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 2;
+        Path directory = Files.createTempDirectory("logging-benchmark");
+        PrintStream console = System.out;
+        // ConsoleLogger and ApplicationLogger write into a file in the temp directory instead of the terminal
+        System.setOut(new PrintStream(new FileOutputStream(directory.resolve("console.log").toFile()), false));
+
+        LoggingBenchmark benchmark = new LoggingBenchmark(directory, seconds * 1_000);
+        console.println("Writing to " + directory);
+        console.printf("%-10s %-9s %7s %14s %10s %10s %12s%n", "scenario", "filtered", "threads", "ops/s", "p50 ns", "p99 ns", "alloc MB/s");
+        for (String scenario : new String[]{"console", "file", "composite"}) {
+            for (boolean filtered : new boolean[]{false, true}) {
+                for (int threads : THREADS) {
+                    BaseLogger rootlogger = benchmark.createRoot(scenario, threads);
+                    rootlogger.setLevel(LogLevel.INFO);
+                    // DEBUG is below the INFO threshold, so the filtered runs measure the cost of rejecting an event
+                    LogLevel level = filtered ? LogLevel.DEBUG : LogLevel.INFO;
+
+                    LoadRun.Result result = LOAD.warmedUp(threads, benchmark.durationNanos,
+                            (index, deadline, samples) -> logUntil(rootlogger, level, deadline, samples));
+                    closeSinks(rootlogger);
+
+                    console.printf("%-10s %-9s %7d %,14.0f %10d %10d %12.1f%n", scenario, filtered, threads,
+                            result.getOperationsPerSecond(), result.percentile(0.50), result.percentile(0.99),
+                            result.getAllocatedBytesPerSecond() / (1024 * 1024));
+                }
+            }
+        }
+        System.out.flush();
+        System.setOut(console);
+    }
+
+    private BaseLogger createRoot(String scenario, int threads) {
+        BaseLogger rootlogger = new ApplicationLogger();
+        Supplier<BaseLogger> filelogger = () -> new FileLogger(directory.resolve("%s-%d.log".formatted(scenario, threads)), 64 * 1024, 1000);
+        switch (scenario) {
+            case "console":
+                rootlogger.addLogger(new ConsoleLogger());
+                break;
+            case "file":
+                rootlogger.addLogger(filelogger.get());
+                break;
+            default:
+                // same layout LoggerFactory builds
+                rootlogger.addLogger(new ConsoleLogger());
+                rootlogger.addLogger(filelogger.get());
+                break;
+        }
+        return rootlogger;
+    }
+
+    // Logs until the deadline and returns the number of calls, every n-th call is timed.
+    private static long logUntil(BaseLogger rootlogger, LogLevel level, long deadline, LoadRun.Samples samples) {
+        long ops = 0;
+        while (true) {
+            if ((ops++ % LATENCY_SAMPLE_EVERY) != 0) {
+                log(rootlogger, level);
+                continue;
+            }
+            long begin = System.nanoTime();
+            log(rootlogger, level);
+            long end = System.nanoTime();
+            samples.add(end - begin);
+            if (end >= deadline) {
+                return ops;
+            }
+        }
+    }
+
+    private static void log(BaseLogger rootlogger, LogLevel level) {
+        if (level == LogLevel.DEBUG) {
+            rootlogger.logdebug(MESSAGE);
+        } else {
+            rootlogger.loginfo(MESSAGE);
+        }
+    }
+
+    private static void closeSinks(BaseLogger rootlogger) {
+        for (BaseLogger sink : rootlogger.loggercollection.snapshot()) {
+            if (sink instanceof FileLogger) {
+                ((FileLogger) sink).close();
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package compound;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded lock-free multi-producer / single-consumer ring buffer. Every slot carries a sequence number,
+// so producers claim a slot with a single CAS on the tail and never contend with the consumer.
+final class RingBuffer {
+    private final LogEvent[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    // time between publishing and handling, written by the consumer only
+    private volatile long lastLagNanos;
+    private volatile long maxLagNanos;
+
+    RingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.slots = new LogEvent[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            this.slots[i] = new LogEvent(i);
+        }
+    }
+
+    // Publishes the event and returns the position it was stored at, -1 when the buffer is full.
+    long offer(LogLevel level, String message, Object[] args) {
+        while (true) {
+            long position = tail.get();
+            LogEvent slot = slots[(int) (position & mask)];
+            long diff = slot.sequence - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slot.published = System.nanoTime();
+                    slot.level = level;
+                    slot.message = message;
+                    slot.args = args;
+                    // the volatile write hands the slot over to the consumer
+                    slot.sequence = position + 1;
+                    return position;
+                }
+            } else if (diff < 0) {
+                return -1;
+            }
+            // another producer claimed this position first, retry with the new tail
+        }
+    }
+
+    // Hands up to max published events to the handler, must only be called from the consumer thread.
+    int drain(EventHandler handler, int max) {
+        int count = 0;
+        long position = head;
+        while (count < max) {
+            LogEvent slot = slots[(int) (position & mask)];
+            if (slot.sequence != position + 1) {
+                break;
+            }
+            LogLevel level = slot.level;
+            String message = slot.message;
+            Object[] args = slot.args;
+            long lag = System.nanoTime() - slot.published;
+            slot.level = null;
+            slot.message = null;
+            slot.args = null;
+            // release the slot before calling the handler so a failing sink never wedges the buffer
+            slot.sequence = position + slots.length;
+            head = ++position;
+            count++;
+            lastLagNanos = lag;
+            if (lag > maxLagNanos) {
+                maxLagNanos = lag;
+            }
+            handler.onEvent(level, message, args);
+        }
+        return count;
+    }
+
+    // True once the consumer has taken the event published at this position.
+    boolean isConsumed(long position) {
+        return head > position;
+    }
+
+    long lastLagNanos() {
+        return lastLagNanos;
+    }
+
+    long maxLagNanos() {
+        return maxLagNanos;
+    }
+
+    int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, slots.length));
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,50 @@
+package compound;
+
+// Point-in-time metrics of one sink behind a FanOutDispatcher.
+final class SinkMetrics {
+    private final String sink;
+    private final int queueDepth;
+    private final long dropped;
+    private final long failed;
+    private final long lastLagNanos;
+    private final long maxLagNanos;
+
+    SinkMetrics(String sink, int queueDepth, long dropped, long failed, long lastLagNanos, long maxLagNanos) {
+        this.sink = sink;
+        this.queueDepth = queueDepth;
+        this.dropped = dropped;
+        this.failed = failed;
+        this.lastLagNanos = lastLagNanos;
+        this.maxLagNanos = maxLagNanos;
+    }
+
+    public String getSink() {
+        return sink;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getLastLagNanos() {
+        return lastLagNanos;
+    }
+
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "SinkMetrics [sink=%s, queueDepth=%d, dropped=%d, failed=%d, lastLag=%dus, maxLag=%dus]"
+                .formatted(sink, queueDepth, dropped, failed, lastLagNanos / 1_000, maxLagNanos / 1_000);
+    }
+}
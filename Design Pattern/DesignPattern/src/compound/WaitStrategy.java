@@ -0,0 +1,8 @@
+package compound;
+
+// Decides what a producer does when the ring buffer is full.
+enum WaitStrategy {
+    BLOCK, // park the calling thread until the consumer frees a slot
+    DROP,  // discard the event and count it as dropped
+    SPIN   // busy-spin until a slot is free, lowest latency but burns a core
+}
@@ -0,0 +1,140 @@
+package flyweight;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Flyweight pool with weak values. The pool itself only holds each flyweight weakly, so an entry is reclaimed by the garbage
+// collector once nothing else (a Tree, a Forest) references it, and a workload with endless distinct keys cannot grow it
+// without bound. The most recently created flyweights, up to the cap, are also held strongly so short gaps in usage do not
+// force them to be rebuilt. While a flyweight is reachable the pool always hands out that same instance.
+class FlyweightPool<K, V> {
+    // Weak reference to the flyweight which remembers its key, so the map entry can be removed once it is collected.
+    private static final class WeakValue<K, V> extends WeakReference<V> {
+        final K key;
+
+        WeakValue(K key, V value, ReferenceQueue<V> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+    }
+
+    // Result of the atomic compute, filled in by the remapping function.
+    private static final class Lookup<V> {
+        V value;
+        boolean created;
+    }
+
+    private final ConcurrentHashMap<K, WeakValue<K, V>> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<V> collected = new ReferenceQueue<>();
+    private final Function<K, V> factory;
+    // ring of strong references to the newest flyweights, overwriting a slot demotes that flyweight to weak-only
+    private final AtomicReferenceArray<V> retained;
+    private final AtomicLong created = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder demoted = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    // maxRetained is the number of flyweights kept alive by the pool itself, 0 makes the pool purely weak.
+    public FlyweightPool(int maxRetained, Function<K, V> factory) {
+        this.retained = new AtomicReferenceArray<>(Math.max(maxRetained, 0));
+        this.factory = factory;
+    }
+
+    public V get(K key) {
+        expungeCollected();
+        WeakValue<K, V> ref = entries.get(key);
+        V value = ref == null ? null : ref.get();
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+
+        // compute is atomic per key, so racing threads agree on one canonical flyweight
+        Lookup<V> lookup = new Lookup<>();
+        entries.compute(key, (k, existing) -> {
+            V current = existing == null ? null : existing.get();
+            if (current != null) {
+                lookup.value = current;
+                return existing;
+            }
+            if (existing != null) {
+                // collected but not expunged yet, replacing the mapping evicts it
+                evicted.increment();
+            }
+            lookup.value = factory.apply(k);
+            lookup.created = true;
+            return new WeakValue<>(k, lookup.value, collected);
+        });
+        if (lookup.created) {
+            misses.increment();
+            retain(lookup.value);
+        } else {
+            hits.increment();
+        }
+        return lookup.value;
+    }
+
+    // Entries currently in the map, including collected ones not yet expunged.
+    public int size() {
+        return entries.size();
+    }
+
+    // Flyweights held strongly by the pool itself.
+    public int retainedCount() {
+        return (int) Math.min(created.get(), retained.length());
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    // Flyweights which dropped out of the strong ring and are now only kept alive by their users.
+    public long getDemotedCount() {
+        return demoted.sum();
+    }
+
+    // Entries removed after the garbage collector reclaimed their flyweight.
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    @Override
+    public String toString() {
+        expungeCollected();
+        return "FlyweightPool [entries=%d, retained=%d, hits=%d, misses=%d, demoted=%d, evicted=%d]"
+                .formatted(size(), retainedCount(), getHitCount(), getMissCount(), getDemotedCount(), getEvictedCount());
+    }
+
+    private void retain(V value) {
+        int capacity = retained.length();
+        if (capacity == 0) {
+            return;
+        }
+        int slot = (int) (created.getAndIncrement() % capacity);
+        if (retained.getAndSet(slot, value) != null) {
+            demoted.increment();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void expungeCollected() {
+        WeakValue<K, V> ref;
+        while ((ref = (WeakValue<K, V>) collected.poll()) != null) {
+            // only remove the mapping if it still points at the collected reference
+            if (entries.remove(ref.key, ref)) {
+                evicted.increment();
+            }
+        }
+    }
+}
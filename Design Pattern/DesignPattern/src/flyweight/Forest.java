@@ -0,0 +1,166 @@
+package flyweight;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Struct-of-arrays storage for the extrinsic state. Instead of one Tree object per tree (object header, two ints, a reference,
+// plus the list slot pointing at it) every tree is an x, a y and a 2-byte type id in three parallel primitive arrays:
+// 10 bytes per tree, laid out sequentially so scans run at memory bandwidth. The shared TreeTypes sit in a small side table.
+// Not thread-safe, build the forest from one thread and share it read-only.
+public class Forest {
+    // Type ids are stored as unsigned chars.
+    private static final int MAX_TYPES = Character.MAX_VALUE + 1;
+
+    private int[] xs;
+    private int[] ys;
+    private char[] typeids;
+    private int size;
+
+    private final List<TreeType> types = new ArrayList<>();
+    private final Map<TreeType, Integer> typeindex = new IdentityHashMap<>();
+
+    public Forest() {
+        this(1024);
+    }
+
+    // Pre-sizing avoids the copy on growth, which briefly needs old and new arrays at once.
+    public Forest(int initialCapacity) {
+        this.xs = new int[initialCapacity];
+        this.ys = new int[initialCapacity];
+        this.typeids = new char[initialCapacity];
+    }
+
+    // Adds a tree and returns its index.
+    public int plant(int x, int y, TreeType type) {
+        if (size == xs.length) {
+            grow();
+        }
+        xs[size] = x;
+        ys[size] = y;
+        typeids[size] = typeId(type);
+        return size++;
+    }
+
+    // Removes a tree by moving the last tree into its slot. Returns the old index of the moved tree,
+    // or -1 when the removed tree was the last one and nothing moved.
+    public int remove(int index) {
+        checkIndex(index);
+        int last = --size;
+        if (index == last) {
+            return -1;
+        }
+        xs[index] = xs[last];
+        ys[index] = ys[last];
+        typeids[index] = typeids[last];
+        return last;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getX(int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    public TreeType getType(int index) {
+        checkIndex(index);
+        return types.get(typeids[index]);
+    }
+
+    // Visits every tree in index order.
+    public void forEach(TreeVisitor visitor) {
+        forEach(0, size, visitor);
+    }
+
+    // Visits the trees in [from, to), lets callers split a scan into chunks.
+    public void forEach(int from, int to, TreeVisitor visitor) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for size " + size);
+        }
+        TreeType[] table = types.toArray(new TreeType[0]);
+        for (int i = from; i < to; i++) {
+            visitor.visit(i, xs[i], ys[i], table[typeids[i]]);
+        }
+    }
+
+    // Displays the Tree based on the shared object but on different positions
+    public void render() {
+        forEach((index, x, y, type) -> type.display(x, y));
+    }
+
+    // Number of distinct TreeTypes referenced by the forest.
+    public int typeCount() {
+        return types.size();
+    }
+
+    // Bytes held by the extrinsic state arrays, excluding the TreeType table.
+    public long footprintBytes() {
+        return (long) xs.length * Integer.BYTES + (long) ys.length * Integer.BYTES + (long) typeids.length * Character.BYTES;
+    }
+
+    private char typeId(TreeType type) {
+        Integer id = typeindex.get(type);
+        if (id == null) {
+            if (types.size() == MAX_TYPES) {
+                throw new IllegalStateException("A forest supports at most " + MAX_TYPES + " tree types");
+            }
+            id = types.size();
+            types.add(type);
+            typeindex.put(type, id);
+        }
+        return (char) id.intValue();
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, xs.length + (xs.length >> 1));
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        typeids = Arrays.copyOf(typeids, capacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+
+    // Plants a large forest and scans it, usage: java flyweight.Forest [number of trees]
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        TreeType[] kinds = {
+                TreeTypeFactory.getTreeType("Oak", "Green", "Rough"),
+                TreeTypeFactory.getTreeType("Pine", "Dark Green", "Needles"),
+                TreeTypeFactory.getTreeType("Birch", "White", "Smooth"),
+        };
+
+        Forest forest = new Forest(count);
+        for (int i = 0; i < count; i++) {
+            forest.plant(i % 10_000, i / 10_000, kinds[i % kinds.length]);
+        }
+
+        // bulk scan: count the oaks in the left half of the map
+        long[] oaks = new long[1];
+        long start = System.nanoTime();
+        forest.forEach((index, x, y, type) -> {
+            if (type == kinds[0] && x < 5_000) {
+                oaks[0]++;
+            }
+        });
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("Trees: " + forest.size() + ", types: " + forest.typeCount());
+        System.out.println("Footprint: " + forest.footprintBytes() / (1024 * 1024) + " MB ("
+                + forest.footprintBytes() / forest.size() + " bytes per tree)");
+        System.out.printf("Scanned %d trees in %d ms, found %d oaks%n", forest.size(), elapsed / 1_000_000, oaks[0]);
+    }
+}
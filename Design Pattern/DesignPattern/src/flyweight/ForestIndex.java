@@ -0,0 +1,398 @@
+package flyweight;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Uniform grid over a Forest: trees are bucketed by (x / cellSize, y / cellSize), so a viewport query only touches the cells
+// it overlaps and a nearest-trees query only the rings of cells around the point, instead of scanning every tree.
+// Plant and remove trees through the index so it stays in step with the forest. Not thread-safe, like Forest.
+public class ForestIndex {
+    // Tree indexes of one grid cell.
+    private static final class Cell {
+        int[] ids = new int[8];
+        int count;
+
+        void add(int id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+
+        void remove(int id) {
+            ids[indexOf(id)] = ids[--count];
+        }
+
+        void replace(int oldid, int newid) {
+            ids[indexOf(oldid)] = newid;
+        }
+
+        private int indexOf(int id) {
+            for (int i = 0; i < count; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("Tree " + id + " is not in this cell");
+        }
+    }
+
+    private final Forest forest;
+    private final int cellSize;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    // bounds of the cells ever used, they limit how far a nearest query has to search
+    private int mincx = Integer.MAX_VALUE;
+    private int mincy = Integer.MAX_VALUE;
+    private int maxcx = Integer.MIN_VALUE;
+    private int maxcy = Integer.MIN_VALUE;
+
+    // Indexes the trees already in the forest. A cell size around the typical viewport edge divided by 4 works well.
+    public ForestIndex(Forest forest, int cellSize) {
+        this.forest = forest;
+        this.cellSize = cellSize;
+        for (int i = 0; i < forest.size(); i++) {
+            cellAt(forest.getX(i), forest.getY(i), true).add(i);
+        }
+    }
+
+    public int plant(int x, int y, TreeType type) {
+        int index = forest.plant(x, y, type);
+        cellAt(x, y, true).add(index);
+        return index;
+    }
+
+    // Removes the tree and fixes up the entry of the tree the forest moved into its slot.
+    public void remove(int index) {
+        int x = forest.getX(index);
+        int y = forest.getY(index);
+        cellAt(x, y, false).remove(index);
+        int moved = forest.remove(index);
+        if (moved >= 0) {
+            cellAt(forest.getX(index), forest.getY(index), false).replace(moved, index);
+        }
+    }
+
+    // Visits every tree with minX <= x <= maxX and minY <= y <= maxY.
+    public void query(int minX, int minY, int maxX, int maxY, TreeVisitor visitor) {
+        int fromcx = Math.max(cell(minX), mincx);
+        int tocx = Math.min(cell(maxX), maxcx);
+        int fromcy = Math.max(cell(minY), mincy);
+        int tocy = Math.min(cell(maxY), maxcy);
+        for (int cx = fromcx; cx <= tocx; cx++) {
+            for (int cy = fromcy; cy <= tocy; cy++) {
+                Cell cell = cells.get(key(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.count; i++) {
+                    int id = cell.ids[i];
+                    int x = forest.getX(id);
+                    int y = forest.getY(id);
+                    if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                        visitor.visit(id, x, y, forest.getType(id));
+                    }
+                }
+            }
+        }
+    }
+
+    // Indexes of the n trees closest to (x, y), nearest first. Searches rings of cells outwards, starting at the first ring
+    // which reaches the occupied cells, and stops once no tree in the next ring can be closer than the n-th best found so
+    // far. When n covers the whole forest every tree is in the answer and a plain scan is cheaper.
+    public int[] nearest(int x, int y, int n) {
+        if (n <= 0 || forest.size() == 0) {
+            return new int[0];
+        }
+        if (n >= forest.size()) {
+            NearestHeap heap = new NearestHeap(forest.size());
+            forest.forEach((id, tx, ty, type) -> heap.offer(id, squaredDistance(tx, ty, x, y)));
+            return heap.sorted();
+        }
+        NearestHeap heap = new NearestHeap(n);
+        int cx = cell(x);
+        int cy = cell(y);
+        // Chebyshev distance in cells from the query cell to the box of occupied cells, the rings inside it are empty
+        int firstring = Math.max(0, Math.max(Math.max(mincx - cx, cx - maxcx), Math.max(mincy - cy, cy - maxcy)));
+        int maxring = Math.max(Math.max(cx - mincx, maxcx - cx), Math.max(cy - mincy, maxcy - cy));
+        for (int ring = firstring; ring <= maxring; ring++) {
+            if (heap.isFull()) {
+                // every tree in this ring is at least (ring - 1) whole cells away from the query point
+                long reach = (long) (ring - 1) * cellSize;
+                if (ring > 0 && reach * reach > heap.worst()) {
+                    break;
+                }
+            }
+            if (ring == 0) {
+                scanRow(cy, cx, cx, x, y, heap);
+                continue;
+            }
+            // only the edge of the ring, the cells inside it were handled by the previous rings
+            scanRow(cy - ring, cx - ring, cx + ring, x, y, heap);
+            scanRow(cy + ring, cx - ring, cx + ring, x, y, heap);
+            scanColumn(cx - ring, cy - ring + 1, cy + ring - 1, x, y, heap);
+            scanColumn(cx + ring, cy - ring + 1, cy + ring - 1, x, y, heap);
+        }
+        return heap.sorted();
+    }
+
+    // Offers the trees of the cells fromcx..tocx in row cy, clipped to the occupied cells.
+    private void scanRow(int cy, int fromcx, int tocx, int x, int y, NearestHeap heap) {
+        if (cy < mincy || cy > maxcy) {
+            return;
+        }
+        for (int cx = Math.max(fromcx, mincx); cx <= Math.min(tocx, maxcx); cx++) {
+            offerCell(cx, cy, x, y, heap);
+        }
+    }
+
+    // Offers the trees of the cells fromcy..tocy in column cx, clipped to the occupied cells.
+    private void scanColumn(int cx, int fromcy, int tocy, int x, int y, NearestHeap heap) {
+        if (cx < mincx || cx > maxcx) {
+            return;
+        }
+        for (int cy = Math.max(fromcy, mincy); cy <= Math.min(tocy, maxcy); cy++) {
+            offerCell(cx, cy, x, y, heap);
+        }
+    }
+
+    private void offerCell(int cx, int cy, int x, int y, NearestHeap heap) {
+        Cell cell = cells.get(key(cx, cy));
+        if (cell == null) {
+            return;
+        }
+        for (int i = 0; i < cell.count; i++) {
+            int id = cell.ids[i];
+            heap.offer(id, squaredDistance(forest.getX(id), forest.getY(id), x, y));
+        }
+    }
+
+    private static long squaredDistance(int x1, int y1, int x2, int y2) {
+        long dx = x1 - (long) x2;
+        long dy = y1 - (long) y2;
+        return dx * dx + dy * dy;
+    }
+
+    private Cell cellAt(int x, int y, boolean create) {
+        int cx = cell(x);
+        int cy = cell(y);
+        long key = key(cx, cy);
+        Cell cell = cells.get(key);
+        if (cell == null && create) {
+            cell = new Cell();
+            cells.put(key, cell);
+            mincx = Math.min(mincx, cx);
+            mincy = Math.min(mincy, cy);
+            maxcx = Math.max(maxcx, cx);
+            maxcy = Math.max(maxcy, cy);
+        }
+        return cell;
+    }
+
+    private int cell(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    // Bounded max-heap on squared distance, keeps the n closest trees seen so far.
+    private static final class NearestHeap {
+        private final int[] ids;
+        private final long[] distances;
+        private int size;
+
+        NearestHeap(int capacity) {
+            ids = new int[capacity];
+            distances = new long[capacity];
+        }
+
+        boolean isFull() {
+            return size == ids.length;
+        }
+
+        long worst() {
+            return distances[0];
+        }
+
+        void offer(int id, long distance) {
+            if (size < ids.length) {
+                ids[size] = id;
+                distances[size] = distance;
+                siftUp(size++);
+            } else if (distance < distances[0]) {
+                ids[0] = id;
+                distances[0] = distance;
+                siftDown(0);
+            }
+        }
+
+        int[] sorted() {
+            int[] result = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                result[i] = ids[0];
+                ids[0] = ids[--size];
+                distances[0] = distances[size];
+                siftDown(0);
+            }
+            return result;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (distances[parent] >= distances[i]) {
+                    return;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && distances[left] > distances[largest]) {
+                    largest = left;
+                }
+                if (right < size && distances[right] > distances[largest]) {
+                    largest = right;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            long distance = distances[a];
+            distances[a] = distances[b];
+            distances[b] = distance;
+        }
+    }
+
+    private static int[] linearNearest(Forest forest, int x, int y, int n) {
+        NearestHeap heap = new NearestHeap(Math.min(n, forest.size()));
+        forest.forEach((id, tx, ty, type) -> heap.offer(id, squaredDistance(tx, ty, x, y)));
+        return heap.sorted();
+    }
+
+    // Compares viewport and nearest-neighbour queries against a linear scan of the forest at 1M and 10M trees, then the
+    // edge cases of nearest on a small forest: a query point far outside it, and n larger than the forest.
+    public static void main(String[] args) {
+        TreeType[] kinds = {
+                TreeTypeFactory.getTreeType("Oak", "Green", "Rough"),
+                TreeTypeFactory.getTreeType("Pine", "Dark Green", "Needles"),
+                TreeTypeFactory.getTreeType("Birch", "White", "Smooth"),
+        };
+        int world = 100_000;
+        int viewport = 1_000;
+        int queries = 200;
+
+        for (int count : new int[]{1_000_000, 10_000_000}) {
+            Random random = new Random(42);
+            Forest forest = new Forest(count);
+            for (int i = 0; i < count; i++) {
+                forest.plant(random.nextInt(world), random.nextInt(world), kinds[i % kinds.length]);
+            }
+            ForestIndex index = new ForestIndex(forest, viewport / 4);
+
+            int[][] points = new int[queries][2];
+            for (int[] point : points) {
+                point[0] = random.nextInt(world - viewport);
+                point[1] = random.nextInt(world - viewport);
+            }
+
+            // warm up both paths once before timing
+            for (int round = 0; round < 2; round++) {
+                long[] found = new long[2];
+                long start = System.nanoTime();
+                for (int[] p : points) {
+                    forest.forEach((id, x, y, type) -> {
+                        if (x >= p[0] && x <= p[0] + viewport && y >= p[1] && y <= p[1] + viewport) {
+                            found[0]++;
+                        }
+                    });
+                }
+                long linear = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int[] p : points) {
+                    index.query(p[0], p[1], p[0] + viewport, p[1] + viewport, (id, x, y, type) -> found[1]++);
+                }
+                long indexed = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                int[] nearest = null;
+                for (int[] p : points) {
+                    nearest = index.nearest(p[0], p[1], 10);
+                }
+                long knn = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int[] p : points) {
+                    linearNearest(forest, p[0], p[1], 10);
+                }
+                long knnlinear = System.nanoTime() - start;
+
+                if (round == 1) {
+                    System.out.printf("%,d trees: viewport linear %.3f ms, grid %.3f ms (%s results); nearest 10 linear %.3f ms, grid %.3f ms%n",
+                            count, linear / 1e6 / queries, indexed / 1e6 / queries, found[0] == found[1] ? "same" : "DIFFERENT",
+                            knnlinear / 1e6 / queries, knn / 1e6 / queries);
+                    System.out.println("  nearest to last query point: " + Arrays.toString(nearest));
+                }
+            }
+        }
+
+        Random random = new Random(42);
+        Forest small = new Forest(1_000);
+        for (int i = 0; i < 1_000; i++) {
+            small.plant(random.nextInt(world), random.nextInt(world), kinds[i % kinds.length]);
+        }
+        ForestIndex smallindex = new ForestIndex(small, 250);
+        int[][] cases = {{-200_000, 0, 5}, {50_000, 50_000, 2_000}};
+        for (int round = 0; round < 2; round++) {
+            for (int[] c : cases) {
+                int[] grid = null;
+                int[] linear = null;
+                long start = System.nanoTime();
+                for (int i = 0; i < queries; i++) {
+                    grid = smallindex.nearest(c[0], c[1], c[2]);
+                }
+                long indexed = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < queries; i++) {
+                    linear = linearNearest(small, c[0], c[1], c[2]);
+                }
+                long scanned = System.nanoTime() - start;
+                if (round == 1) {
+                    System.out.printf("1,000 trees, nearest %,d to (%,d, %,d): linear %.3f ms, grid %.3f ms (%s results)%n", c[2],
+                            c[0], c[1], scanned / 1e6 / queries, indexed / 1e6 / queries,
+                            sameDistances(small, c[0], c[1], grid, linear) ? "same" : "DIFFERENT");
+                }
+            }
+        }
+    }
+
+    // Ties may come back in a different order, so compare the distances rather than the ids.
+    private static boolean sameDistances(Forest forest, int x, int y, int[] a, int[] b) {
+        if (a.length != b.length) {
+            return false;
+        }
+        for (int i = 0; i < a.length; i++) {
+            if (squaredDistance(forest.getX(a[i]), forest.getY(a[i]), x, y) != squaredDistance(forest.getX(b[i]), forest.getY(b[i]), x, y)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
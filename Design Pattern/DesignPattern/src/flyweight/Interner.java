@@ -0,0 +1,350 @@
+package flyweight;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runtime counterpart of StringFlyweight: the JVM constant pool only shares compile-time literals, this shares Strings built
+// from runtime data, e.g. the same city name on millions of CSV rows. Lookups accept a CharSequence or raw UTF-8 bytes and
+// only create a String when the value has not been seen before.
+//
+// The table is split into lock-striped open-addressing stripes. Lookups never lock: they read the stripe's current array and
+// probe it linearly. Inserts lock only their stripe, re-probe, and publish a resized array through a volatile write.
+// The bounded variant never resizes; once a probe sequence is full it overwrites its first slot, so memory stays fixed and
+// evicted values are simply created again (equal, but no longer the identical instance).
+public class Interner {
+    private static final int STRIPES = 16;
+    private static final int BOUNDED_PROBES = 8;
+
+    // One independently locked open-addressing table.
+    private static final class Stripe {
+        volatile String[] table;
+        int count;
+
+        Stripe(int capacity) {
+            table = new String[capacity];
+        }
+    }
+
+    // Per-thread buffers used to decode non-ASCII bytes without allocating.
+    private static final class Decoding {
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(256);
+    }
+
+    private static final ThreadLocal<Decoding> DECODING = ThreadLocal.withInitial(Decoding::new);
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final boolean bounded;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Unbounded interner, every distinct value stays canonical for the lifetime of the interner.
+    public Interner() {
+        this(64, false);
+    }
+
+    private Interner(int stripeCapacity, boolean bounded) {
+        this.bounded = bounded;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    // Interner with a fixed number of slots, maxEntries rounded up to a power of two and at least 128.
+    public static Interner bounded(int maxEntries) {
+        int perstripe = Math.max(BOUNDED_PROBES, (maxEntries + STRIPES - 1) / STRIPES);
+        return new Interner(Integer.highestOneBit(perstripe - 1) << 1, true);
+    }
+
+    public String intern(String value) {
+        return intern(value, 0, value.length());
+    }
+
+    public String intern(CharSequence value) {
+        return intern(value, 0, value.length());
+    }
+
+    // Interns the characters in [start, end) of the sequence.
+    public String intern(CharSequence value, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + value.charAt(i);
+        }
+        Stripe stripe = stripeFor(hash);
+        String found = find(stripe.table, hash, value, start, end);
+        if (found != null) {
+            hits.increment();
+            return found;
+        }
+        return insert(stripe, hash, value, start, end);
+    }
+
+    // Interns UTF-8 bytes, e.g. a field sliced straight out of a read buffer. ASCII input is hashed and compared in place,
+    // other input is decoded into a reused per-thread buffer; a String is only built for values not seen before.
+    public String intern(byte[] utf8, int offset, int length) {
+        int hash = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = utf8[i];
+            if (b < 0) {
+                return internDecoded(utf8, offset, length);
+            }
+            hash = 31 * hash + b;
+        }
+        Stripe stripe = stripeFor(hash);
+        String[] table = stripe.table;
+        int mask = table.length - 1;
+        int probes = bounded ? BOUNDED_PROBES : table.length;
+        for (int i = 0, slot = spread(hash) & mask; i < probes; i++, slot = (slot + 1) & mask) {
+            String candidate = table[slot];
+            if (candidate == null) {
+                break;
+            }
+            if (candidate.hashCode() == hash && asciiEquals(candidate, utf8, offset, length)) {
+                hits.increment();
+                return candidate;
+            }
+        }
+        return insert(stripe, hash, new String(utf8, offset, length, StandardCharsets.ISO_8859_1), 0, length);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.count;
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    // Values overwritten by the bounded variant, always 0 for the unbounded one.
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    // Bytes held by the tables themselves, one reference per slot with compressed oops.
+    public long tableBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += Footprint.arrayBytes(stripe.table.length, 4);
+        }
+        return bytes;
+    }
+
+    private String internDecoded(byte[] utf8, int offset, int length) {
+        Decoding decoding = DECODING.get();
+        if (decoding.chars.capacity() < length) {
+            // UTF-8 never decodes to more chars than bytes
+            decoding.chars = CharBuffer.allocate(Integer.highestOneBit(length) << 1);
+        }
+        CharBuffer chars = decoding.chars;
+        chars.clear();
+        decoding.decoder.reset();
+        decoding.decoder.decode(ByteBuffer.wrap(utf8, offset, length), chars, true);
+        decoding.decoder.flush(chars);
+        chars.flip();
+        return intern(chars, 0, chars.length());
+    }
+
+    private String find(String[] table, int hash, CharSequence value, int start, int end) {
+        int mask = table.length - 1;
+        int probes = bounded ? BOUNDED_PROBES : table.length;
+        for (int i = 0, slot = spread(hash) & mask; i < probes; i++, slot = (slot + 1) & mask) {
+            String candidate = table[slot];
+            if (candidate == null) {
+                return null;
+            }
+            if (candidate.hashCode() == hash && contentEquals(candidate, value, start, end)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private String insert(Stripe stripe, int hash, CharSequence value, int start, int end) {
+        synchronized (stripe) {
+            // another thread may have inserted it since the lock-free probe
+            String found = find(stripe.table, hash, value, start, end);
+            if (found != null) {
+                hits.increment();
+                return found;
+            }
+            misses.increment();
+            String created = value instanceof String && start == 0 && end == value.length()
+                    ? (String) value
+                    : value.subSequence(start, end).toString();
+            if (bounded) {
+                insertBounded(stripe, hash, created);
+            } else {
+                if ((stripe.count + 1) * 2 > stripe.table.length) {
+                    stripe.table = resize(stripe.table);
+                }
+                place(stripe.table, hash, created);
+                stripe.count++;
+            }
+            return created;
+        }
+    }
+
+    private void insertBounded(Stripe stripe, int hash, String created) {
+        String[] table = stripe.table;
+        int mask = table.length - 1;
+        int first = spread(hash) & mask;
+        for (int i = 0, slot = first; i < BOUNDED_PROBES; i++, slot = (slot + 1) & mask) {
+            if (table[slot] == null) {
+                table[slot] = created;
+                stripe.count++;
+                return;
+            }
+        }
+        // probe sequence full, replacing never creates holes so other probe chains stay intact
+        table[first] = created;
+        evictions.increment();
+    }
+
+    private static String[] resize(String[] table) {
+        String[] resized = new String[table.length * 2];
+        for (String value : table) {
+            if (value != null) {
+                place(resized, value.hashCode(), value);
+            }
+        }
+        return resized;
+    }
+
+    private static void place(String[] table, int hash, String value) {
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        while (table[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+    }
+
+    private Stripe stripeFor(int hash) {
+        return stripes[(spread(hash) >>> 28) & (STRIPES - 1)];
+    }
+
+    // Mixes the bits so that similar strings spread across stripes and slots.
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean contentEquals(String candidate, CharSequence value, int start, int end) {
+        if (candidate.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < candidate.length(); i++) {
+            if (candidate.charAt(i) != value.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean asciiEquals(String candidate, byte[] bytes, int offset, int length) {
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Object sizes following the layout JOL reports for a 64-bit HotSpot JVM with compressed oops and compact strings.
+    static final class Footprint {
+        private static final int OBJECT_ALIGNMENT = 8;
+        private static final int ARRAY_HEADER = 16;
+        // header 12 + value reference 4 + hash 4 + coder 1 + hashIsZero 1, aligned
+        private static final int STRING_SHALLOW = 24;
+
+        static long arrayBytes(int length, int elementSize) {
+            return align(ARRAY_HEADER + (long) length * elementSize);
+        }
+
+        // String object plus its backing byte[] (Latin-1 strings use 1 byte per char, others 2).
+        static long stringBytes(String value) {
+            boolean latin1 = value.chars().allMatch(c -> c < 256);
+            return STRING_SHALLOW + arrayBytes(value.length(), latin1 ? 1 : 2);
+        }
+
+        private static long align(long bytes) {
+            return (bytes + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+        }
+    }
+
+    // Simulates a CSV ingest with repeated city names and compares the retained footprint with and without interning.
+    public static void main(String[] args) {
+        int rows = 1_000_000;
+        String[] cities = {"Mumbai", "Pune", "Delhi", "Bengaluru", "Chennai", "Kolkata", "Hyderabad", "Ahmedabad",
+                "Jaipur", "Lucknow", "Nagpur", "Indore", "Thane", "Bhopal", "Patna", "Vadodara", "São Paulo", "Zürich"};
+        byte[][] lines = new byte[rows][];
+        Random random = new Random(7);
+        for (int i = 0; i < rows; i++) {
+            lines[i] = (i + "," + cities[random.nextInt(cities.length)] + "," + random.nextInt(100)).getBytes(StandardCharsets.UTF_8);
+        }
+
+        String[] plain = new String[rows];
+        String[] interned = new String[rows];
+        Interner interner = new Interner();
+        // the row ids are all distinct, the bounded interner keeps its memory fixed by evicting
+        Interner ids = Interner.bounded(1024);
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            byte[] line = lines[i];
+            int comma = indexOf(line, 0);
+            int from = comma + 1;
+            int to = indexOf(line, from);
+            plain[i] = new String(line, from, to - from, StandardCharsets.UTF_8);
+            interned[i] = interner.intern(line, from, to - from);
+            ids.intern(line, 0, comma);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long plainbytes = 0;
+        for (String value : plain) {
+            plainbytes += Footprint.stringBytes(value);
+        }
+        long internedbytes = interner.tableBytes();
+        for (String value : cities) {
+            internedbytes += Footprint.stringBytes(interner.intern(value));
+        }
+        System.out.printf("%,d rows, %d distinct cities, ingest took %d ms%n", rows, interner.size(), elapsed / 1_000_000);
+        System.out.printf("Without interning: %,d bytes in city Strings%n", plainbytes);
+        System.out.printf("With interning:    %,d bytes (Strings plus table), %.0fx smaller%n", internedbytes, (double) plainbytes / internedbytes);
+        System.out.printf("Hits: %,d, misses: %d%n", interner.getHitCount(), interner.getMissCount());
+        System.out.printf("Row ids in an interner bounded to 1024: size %d, evictions %,d, table %,d bytes%n",
+                ids.size(), ids.getEvictionCount(), ids.tableBytes());
+        System.out.println("Same instance: " + (interned[0] == interner.intern(interned[0])));
+    }
+
+    private static int indexOf(byte[] line, int from) {
+        for (int i = from; i < line.length; i++) {
+            if (line[i] == ',') {
+                return i;
+            }
+        }
+        return line.length;
+    }
+}
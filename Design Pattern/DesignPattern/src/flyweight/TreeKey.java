@@ -0,0 +1,5 @@
+package flyweight;
+
+// Composite key of the intrinsic state, compares the three fields instead of concatenating them into a String
+record TreeKey(String name, String color, String texture) {
+}
@@ -0,0 +1,19 @@
+package flyweight;
+
+// Intrinsic State (Shared Object)
+class TreeType {
+    private String name;
+    private String color;
+    private String texture;
+
+    public TreeType(String name, String color, String texture) {
+        this.color = color;
+        this.name = name;
+        this.texture = texture;
+    }
+
+    // Display the Tree based on different positions.
+    public void display(int x, int y) {
+        System.out.println("Tree: " + name + " at (" + x + "," + y + ")");
+    }
+}
@@ -0,0 +1,32 @@
+package flyweight;
+
+// Factory Flyweight
+class TreeTypeFactory {
+    // Pool of each type of object, safe to share between threads. Types nobody plants anymore are reclaimed by the GC,
+    // only the newest MAX_RETAINED types are kept alive by the factory itself.
+    private static final int MAX_RETAINED = 1024;
+    private static final FlyweightPool<TreeKey, TreeType> treetypes =
+            new FlyweightPool<>(MAX_RETAINED, key -> new TreeType(key.name(), key.color(), key.texture()));
+
+    // Get the Tree type according to the key from the pool
+    public static TreeType getTreeType(String name, String color, String texture) {
+        return treetypes.get(new TreeKey(name, color, texture));
+    }
+
+    public static long getHitCount() {
+        return treetypes.getHitCount();
+    }
+
+    public static long getMissCount() {
+        return treetypes.getMissCount();
+    }
+
+    public static int size() {
+        return treetypes.size();
+    }
+
+    // Pool metrics: entries, strongly retained types, hits, misses, demotions and evictions.
+    public static String stats() {
+        return treetypes.toString();
+    }
+}
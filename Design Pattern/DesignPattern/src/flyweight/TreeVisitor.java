@@ -0,0 +1,6 @@
+package flyweight;
+
+// Callback for bulk iteration, gets the extrinsic state as primitives so scanning the forest creates no objects.
+interface TreeVisitor {
+    void visit(int index, int x, int y, TreeType type);
+}
@@ -0,0 +1,6 @@
+package observer;
+
+// One complete reading of the weather station. WeatherData publishes each new reading as a single immutable object,
+// so a reader always gets a temperature, humidity and pressure which were set together.
+record Measurement(float temperature, float humidity, float pressure) {
+}
@@ -0,0 +1,89 @@
+package observer;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Feeds a high-frequency sensor into a slow subscriber and a windowed one, and shows that memory stays bounded.
+// Usage: java observer.MeasurementStream [seconds]
+public class MeasurementStream {
+	private static final int UPDATES_PER_SECOND = 100_000;
+	// about 40 ms of the feed per subscriber
+	private static final int BUFFER_CAPACITY = 4096;
+
+	public static void main(String[] args) throws InterruptedException {
+		long seconds = args.length > 0 ? Long.parseLong(args[0]) : 2;
+		WeatherData weatherdata = new WeatherData(BUFFER_CAPACITY, Overflow.DROP);
+
+		// takes 1 ms per reading, a hundred times slower than the feed
+		CountingSubscriber<Measurement> slow = new CountingSubscriber<>(() -> LockSupport.parkNanos(1_000_000));
+		weatherdata.subscribe(slow);
+		// averages windows of 1000 readings, keeps up easily
+		CountingSubscriber<List<Measurement>> windowed = new CountingSubscriber<>(() -> {
+		});
+		weatherdata.window(1000).subscribe(windowed);
+
+		Runtime runtime = Runtime.getRuntime();
+		long maxheap = 0;
+		long total = UPDATES_PER_SECOND * seconds;
+		long start = System.nanoTime();
+		for (long i = 0; i < total; i++) {
+			weatherdata.setMeasurements(i % 40, 1000 + i % 50, (i % 100) / 100f);
+			if (i % 1000 == 999) {
+				// pace the feed at UPDATES_PER_SECOND
+				long due = start + (i + 1) * 1_000_000_000L / UPDATES_PER_SECOND;
+				LockSupport.parkNanos(due - System.nanoTime());
+				maxheap = Math.max(maxheap, runtime.totalMemory() - runtime.freeMemory());
+			}
+		}
+		double elapsed = (System.nanoTime() - start) / 1e9;
+		weatherdata.close();
+		slow.done.await(10, TimeUnit.SECONDS);
+		windowed.done.await(10, TimeUnit.SECONDS);
+
+		System.out.printf("Published %,d readings in %.2f s (%,.0f/s), max heap in use %d MB%n", total, elapsed, total / elapsed,
+				maxheap >> 20);
+		System.out.printf("Slow subscriber:     received %,d, dropped %,d%n", slow.received.get(), weatherdata.getDroppedCount(slow));
+		System.out.printf("Windowed subscriber: received %,d windows of up to 1000 readings, dropped %,d readings%n",
+				windowed.received.get(), weatherdata.getDroppedCount() - weatherdata.getDroppedCount(slow));
+	}
+
+	// Requests one item at a time and runs the given work for each.
+	private static final class CountingSubscriber<T> implements Flow.Subscriber<T> {
+		final AtomicLong received = new AtomicLong();
+		final CountDownLatch done = new CountDownLatch(1);
+		private final Runnable work;
+		private Flow.Subscription subscription;
+
+		CountingSubscriber(Runnable work) {
+			this.work = work;
+		}
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscription.request(1);
+		}
+
+		@Override
+		public void onNext(T item) {
+			work.run();
+			received.incrementAndGet();
+			subscription.request(1);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			throwable.printStackTrace();
+			done.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			done.countDown();
+		}
+	}
+}
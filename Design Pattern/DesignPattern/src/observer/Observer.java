@@ -0,0 +1,5 @@
+package observer;
+
+interface Observer {
+	public void update();
+}
@@ -0,0 +1,128 @@
+package observer;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Delivers notifications to one observer on an executor instead of the thread which set the measurements. WeatherData keeps
+// one mailbox per registration in its observer array, so the mailbox lives and dies with the registration.
+// Notifications coalesce: signal() only counts them, and while the observer is still busy with an earlier update
+// any number of new ones collapse into a single update() call, which then reads the latest measurements.
+// A slow observer therefore never holds up the sensor feed or the other observers, it just sees fewer updates,
+// and the skipped ones are counted. Once closed the mailbox delivers nothing more, not even a drain already queued.
+class ObserverMailbox {
+	private final Observer observer;
+	// notifications not yet delivered
+	private final AtomicLong pending = new AtomicLong();
+	// true while a drain task is queued or running, at most one per observer
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final LongAdder delivered = new LongAdder();
+	private final LongAdder skipped = new LongAdder();
+	// set when the observer is removed
+	private volatile boolean closed;
+
+	public ObserverMailbox(Observer observer) {
+		this.observer = observer;
+	}
+
+	public Observer getObserver() {
+		return observer;
+	}
+
+	// Called on the producer thread, never blocks. The drain runs on the given executor.
+	public void signal(Executor executor) {
+		if (closed) {
+			return;
+		}
+		pending.incrementAndGet();
+		if (scheduled.compareAndSet(false, true)) {
+			executor.execute(this::drain);
+		}
+	}
+
+	// Stops delivery, an update() already running finishes but no later one starts.
+	public void close() {
+		closed = true;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	// Updates delivered to the observer.
+	public long getDeliveredCount() {
+		return delivered.sum();
+	}
+
+	// Notifications folded into a later update because the observer was still busy.
+	public long getSkippedCount() {
+		return skipped.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "ObserverMailbox [delivered=" + getDeliveredCount() + ", skipped=" + getSkippedCount() + "]";
+	}
+
+	private void drain() {
+		while (!closed) {
+			long signals = pending.getAndSet(0);
+			if (signals > 0) {
+				skipped.add(signals - 1);
+				try {
+					observer.update();
+				} catch (RuntimeException e) {
+					// a failing observer must not stop its own later deliveries
+					System.err.println("Observer " + observer.getClass().getSimpleName() + " failed: " + e);
+				}
+				delivered.increment();
+				continue;
+			}
+			scheduled.set(false);
+			// a signal which arrived after the last getAndSet saw scheduled still true and did not submit a task
+			if (pending.get() == 0 || !scheduled.compareAndSet(false, true)) {
+				return;
+			}
+		}
+		// left set, a closed mailbox never schedules again
+	}
+
+	// A slow display next to a fast one, fed 100 updates a millisecond apart.
+	public static void main(String[] args) throws InterruptedException {
+		ExecutorService executor = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "observer-delivery");
+			thread.setDaemon(true);
+			return thread;
+		});
+		WeatherData weatherdata = new WeatherData();
+		weatherdata.enableAsyncNotification(executor);
+
+		Observer slow = () -> {
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			System.out.println("Slow display = " + weatherdata.getTemperature());
+		};
+		Observer fast = () -> {
+		};
+		weatherdata.registerObserver(slow);
+		weatherdata.registerObserver(fast);
+
+		long start = System.nanoTime();
+		for (int i = 1; i <= 100; i++) {
+			weatherdata.setMeasurements(i, i, i / 100f);
+			Thread.sleep(1);
+		}
+		System.out.printf("Producer done after %d ms%n", (System.nanoTime() - start) / 1_000_000);
+		executor.shutdown();
+		executor.awaitTermination(5, TimeUnit.SECONDS);
+		System.out.println("Slow display: " + weatherdata.getMailbox(slow));
+		System.out.println("Fast display: " + weatherdata.getMailbox(fast));
+	}
+}
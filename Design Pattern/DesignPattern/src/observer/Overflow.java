@@ -0,0 +1,7 @@
+package observer;
+
+// Decides what WeatherData does when a subscriber's buffer is full.
+enum Overflow {
+	BLOCK, // wait in setMeasurements until the subscriber catches up, the sensor feed slows down to the slowest subscriber
+	DROP   // discard the reading for that subscriber only and count it
+}
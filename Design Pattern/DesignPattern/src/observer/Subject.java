@@ -0,0 +1,10 @@
+package observer;
+
+// These is the Subject
+interface Subject {
+	public void registerObserver(Observer o);
+
+	public void removeObserver(Observer o);
+
+	public void notifyObserver();
+}
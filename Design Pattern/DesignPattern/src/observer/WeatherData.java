@@ -0,0 +1,204 @@
+package observer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+// These is the main subject the observer register here to receive the updates to all the subscribed observer.
+// It is also a Flow.Publisher: subscribers get every Measurement pushed to them as far as their demand allows, each through
+// its own bounded buffer, and the Overflow policy decides what happens when a subscriber falls behind.
+class WeatherData implements Subject, Flow.Publisher<Measurement>, AutoCloseable {
+
+	private static final ObserverMailbox[] EMPTY = {};
+
+	// Copy-on-write array: registering or removing swaps in a new array, notification iterates whichever array it read
+	// without any lock, so observers can come and go while a notification is running. Each observer sits in the array with
+	// its mailbox, and removing it closes the mailbox, so a notification still walking an older array skips it
+	private final AtomicReference<ObserverMailbox[]> observers = new AtomicReference<>(EMPTY);
+	// The latest reading as one immutable object, replaced as a whole so readers never see a mix of two readings
+	private volatile Measurement measurement = new Measurement(0, 0, 0);
+
+	// null while observers are notified synchronously on the thread setting the measurements
+	private volatile Executor executor;
+
+	// Delivers to subscribers, a thread per busy subscriber so a slow one can never starve the others
+	private static final Executor STREAM_EXECUTOR = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "weather-stream");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final SubmissionPublisher<Measurement> publisher;
+	private final Executor streamexecutor;
+	private final Overflow overflow;
+	private final Map<Flow.Subscriber<?>, LongAdder> dropped = new ConcurrentHashMap<>();
+
+	public WeatherData() {
+		this(STREAM_EXECUTOR, Flow.defaultBufferSize(), Overflow.DROP);
+	}
+
+	public WeatherData(int bufferCapacity, Overflow overflow) {
+		this(STREAM_EXECUTOR, bufferCapacity, overflow);
+	}
+
+	// bufferCapacity is the most readings held for any one subscriber, rounded up to a power of two
+	public WeatherData(Executor streamExecutor, int bufferCapacity, Overflow overflow) {
+		this.publisher = new SubmissionPublisher<>(streamExecutor, bufferCapacity);
+		this.streamexecutor = streamExecutor;
+		this.overflow = overflow;
+	}
+
+	// Register the Observer
+	@Override
+	public void registerObserver(Observer o) {
+		ObserverMailbox mailbox = new ObserverMailbox(o);
+		ObserverMailbox[] current;
+		ObserverMailbox[] updated;
+		do {
+			current = observers.get();
+			updated = Arrays.copyOf(current, current.length + 1);
+			updated[current.length] = mailbox;
+		} while (!observers.compareAndSet(current, updated));
+	}
+
+	@Override
+	public void removeObserver(Observer o) {
+		ObserverMailbox[] current;
+		ObserverMailbox[] updated;
+		int index;
+		do {
+			current = observers.get();
+			index = indexOf(current, o);
+			if (index < 0) {
+				return;
+			}
+			updated = new ObserverMailbox[current.length - 1];
+			System.arraycopy(current, 0, updated, 0, index);
+			System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+		} while (!observers.compareAndSet(current, updated));
+		// a drain already queued must not call update() on the removed observer
+		current[index].close();
+	}
+
+	// Notify all the observer which are subscribed
+	@Override
+	public void notifyObserver() {
+		Executor async = executor;
+		for (ObserverMailbox mailbox : observers.get()) {
+			if (async != null) {
+				mailbox.signal(async);
+			} else if (!mailbox.isClosed()) {
+				mailbox.getObserver().update();
+			}
+		}
+	}
+
+	// From now on every observer is updated on the executor through its own mailbox, so a slow observer no longer blocks
+	// setMeasurements. Rapid updates coalesce and a busy observer only sees the latest measurements.
+	public void enableAsyncNotification(Executor executor) {
+		this.executor = executor;
+	}
+
+	// Delivery counters of the observer, null when it is not registered.
+	public ObserverMailbox getMailbox(Observer o) {
+		ObserverMailbox[] current = observers.get();
+		int index = indexOf(current, o);
+		return index < 0 ? null : current[index];
+	}
+
+	private static int indexOf(ObserverMailbox[] mailboxes, Observer o) {
+		for (int i = 0; i < mailboxes.length; i++) {
+			if (mailboxes[i].getObserver().equals(o)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// when the measurements are changed notify's all the subscriber
+	public void measurementsChanged() {
+		this.notifyObserver();
+	}
+
+	// Sets the measurements and displays the updates.
+	public void setMeasurements(float temperature, float pressure, float humidity) {
+		// published from the local, with concurrent producers the field may already hold another thread's reading
+		Measurement measurement = new Measurement(temperature, humidity, pressure);
+		this.measurement = measurement;
+		this.measurementsChanged();
+		this.publish(measurement);
+	}
+
+	// Subscribers receive every reading set from now on, as far as their demand and buffer allow
+	@Override
+	public void subscribe(Flow.Subscriber<? super Measurement> subscriber) {
+		publisher.subscribe(subscriber);
+	}
+
+	// Readings batched n at a time, so a consumer can handle a high-frequency feed a window at a time
+	public Flow.Publisher<List<Measurement>> window(int n) {
+		WindowProcessor<Measurement> processor = new WindowProcessor<>(n, streamexecutor, publisher.getMaxBufferCapacity());
+		subscribe(processor);
+		return processor;
+	}
+
+	// Readings dropped for this subscriber because its buffer was full
+	public long getDroppedCount(Flow.Subscriber<?> subscriber) {
+		LongAdder count = dropped.get(subscriber);
+		return count == null ? 0 : count.sum();
+	}
+
+	public long getDroppedCount() {
+		return dropped.values().stream().mapToLong(LongAdder::sum).sum();
+	}
+
+	// Completes every subscriber, observers are not affected. Readings set afterwards are no longer streamed
+	@Override
+	public void close() {
+		publisher.close();
+	}
+
+	private void publish(Measurement measurement) {
+		if (publisher.isClosed() || !publisher.hasSubscribers()) {
+			return;
+		}
+		try {
+			if (overflow == Overflow.BLOCK) {
+				publisher.submit(measurement);
+				return;
+			}
+			publisher.offer(measurement, (subscriber, item) -> {
+				dropped.computeIfAbsent(subscriber, s -> new LongAdder()).increment();
+				// false: do not retry, the next reading replaces this one anyway
+				return false;
+			});
+		} catch (IllegalStateException e) {
+			// close() ran after the check above, the reading is dropped like any other set after close
+		}
+	}
+
+	// The latest reading, use it instead of the single getters to read several values which belong together
+	public Measurement getMeasurement() {
+		return measurement;
+	}
+
+	public float getTemperature() {
+		return measurement.temperature();
+	}
+
+	public float getHumidity() {
+		return measurement.humidity();
+	}
+
+	public float getPressure() {
+		return measurement.pressure();
+	}
+
+}
@@ -0,0 +1,57 @@
+package observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+// Batches every n items into one List, so a consumer handles a window of readings at once instead of each reading.
+// Upstream demand does not follow downstream demand: the processor asks for n items on subscribe and n more after each
+// window it hands on. Windows are buffered per subscriber like any SubmissionPublisher, at most bufferCapacity, and once
+// a buffer is full submit blocks, which holds back the next upstream request. A partial window is emitted when the
+// upstream completes.
+class WindowProcessor<T> extends SubmissionPublisher<List<T>> implements Flow.Processor<T, List<T>> {
+	private final int size;
+	private Flow.Subscription upstream;
+	private List<T> window;
+
+	WindowProcessor(int size, Executor executor, int bufferCapacity) {
+		super(executor, bufferCapacity);
+		if (size <= 0) {
+			throw new IllegalArgumentException("Window size must be positive: " + size);
+		}
+		this.size = size;
+		this.window = new ArrayList<>(size);
+	}
+
+	@Override
+	public void onSubscribe(Flow.Subscription subscription) {
+		upstream = subscription;
+		upstream.request(size);
+	}
+
+	@Override
+	public void onNext(T item) {
+		window.add(item);
+		if (window.size() == size) {
+			// blocks while the downstream buffer is full, which holds back the next upstream request
+			submit(window);
+			window = new ArrayList<>(size);
+			upstream.request(size);
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		closeExceptionally(throwable);
+	}
+
+	@Override
+	public void onComplete() {
+		if (!window.isEmpty()) {
+			submit(window);
+		}
+		close();
+	}
+}
@@ -0,0 +1,236 @@
+package singleton;
+
+import benchmark.LoadRun;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed set of pre-warmed connections. Checkout and return never lock: a semaphore counts the idle connections and a claimed
+// permit is turned into a connection by CAS-ing one from IDLE to IN_USE, each thread starting its scan at a different slot.
+// When every connection is busy the caller waits up to its timeout. A housekeeping thread reports connections held longer
+// than the leak threshold, with the stack of the code that checked them out, and reconnects connections idle for too long.
+public class ConnectionPool implements AutoCloseable {
+	// load test in main(), keeps every checkout latency
+	private static final LoadRun LOAD = new LoadRun("load", 1 << 16, Integer.MAX_VALUE);
+
+	private final FakeBackend backend;
+	private final PoolEntry[] connections;
+	// permits never exceed the number of IDLE connections, so a permit holder always finds one to claim. Fair, so a returned
+	// connection goes to the longest waiter instead of a barging thread; without it a few waiters starve into timeouts.
+	private final Semaphore available;
+	private final long idleTimeoutNanos;
+	private final long leakThresholdNanos;
+	private final ScheduledExecutorService housekeeper;
+	private volatile boolean closed;
+
+	private final LongAdder checkouts = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder leaks = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	// An idle timeout or leak threshold of 0 turns that check off.
+	public ConnectionPool(FakeBackend backend, int size, long idleTimeoutMillis, long leakThresholdMillis) {
+		this.backend = backend;
+		this.connections = new PoolEntry[size];
+		for (int i = 0; i < size; i++) {
+			connections[i] = new PoolEntry(i, backend.connect());
+		}
+		this.available = new Semaphore(size, true);
+		this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+		this.leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+		this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "connection-pool-housekeeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// a quarter of the shortest enabled check, a disabled one must not drive the period down to the minimum
+		long shortest = Math.min(idleTimeoutMillis > 0 ? idleTimeoutMillis : Long.MAX_VALUE,
+				leakThresholdMillis > 0 ? leakThresholdMillis : Long.MAX_VALUE);
+		if (shortest != Long.MAX_VALUE) {
+			long period = Math.max(10, shortest / 4);
+			housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	// Takes an idle connection, waiting up to the timeout for one to be returned.
+	public PooledConnection checkout(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+		if (closed) {
+			throw new IllegalStateException("Connection pool is closed");
+		}
+		if (!available.tryAcquire(timeout, unit)) {
+			timeouts.increment();
+			throw new TimeoutException("No connection available within " + unit.toMillis(timeout) + " ms");
+		}
+		PoolEntry entry = claim();
+		entry.leakReported = false;
+		if (leakThresholdNanos > 0) {
+			// capturing the stack costs a few microseconds, only pay for it when leaks are tracked
+			entry.checkoutSite = new Throwable("Connection " + entry.id + " checked out here");
+		}
+		// written last: the housekeeper only looks at a checkout once this is newer than the previous release
+		entry.checkedOutNanos = System.nanoTime();
+		checkouts.increment();
+		return new PooledConnection(entry, this);
+	}
+
+	// Called once per checkout, PooledConnection.close() filters out repeated and stale closes.
+	void release(PoolEntry entry) {
+		entry.lastUsedNanos = System.nanoTime();
+		entry.checkoutSite = null;
+		if (entry.state.compareAndSet(PoolEntry.IN_USE, PoolEntry.IDLE)) {
+			available.release();
+		}
+	}
+
+	public int size() {
+		return connections.length;
+	}
+
+	public int idleCount() {
+		return available.availablePermits();
+	}
+
+	// Threads waiting for a connection right now.
+	public int waitingCount() {
+		return available.getQueueLength();
+	}
+
+	public long getCheckoutCount() {
+		return checkouts.sum();
+	}
+
+	public long getTimeoutCount() {
+		return timeouts.sum();
+	}
+
+	public long getLeakCount() {
+		return leaks.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		housekeeper.shutdownNow();
+		for (PoolEntry entry : connections) {
+			entry.session.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ConnectionPool [size=" + size() + ", idle=" + idleCount() + ", waiting=" + waitingCount() + ", checkouts="
+				+ getCheckoutCount() + ", timeouts=" + getTimeoutCount() + ", leaks=" + getLeakCount() + ", evictions="
+				+ getEvictionCount() + "]";
+	}
+
+	private PoolEntry claim() {
+		int size = connections.length;
+		int start = (int) (Thread.currentThread().getId() % size);
+		while (true) {
+			for (int i = 0; i < size; i++) {
+				PoolEntry entry = connections[(start + i) % size];
+				if (entry.state.get() == PoolEntry.IDLE && entry.state.compareAndSet(PoolEntry.IDLE, PoolEntry.IN_USE)) {
+					return entry;
+				}
+			}
+			// another permit holder took the one we saw, our permit guarantees a different one is idle
+			Thread.onSpinWait();
+		}
+	}
+
+	private void housekeep() {
+		long now = System.nanoTime();
+		for (PoolEntry entry : connections) {
+			int state = entry.state.get();
+			long checkedout = entry.checkedOutNanos;
+			// claim() makes an entry IN_USE before checkout() stamps it, until then checkedOutNanos is the previous lease's
+			boolean stamped = checkedout - entry.lastUsedNanos > 0;
+			if (state == PoolEntry.IN_USE && leakThresholdNanos > 0 && stamped && !entry.leakReported
+					&& now - checkedout > leakThresholdNanos) {
+				entry.leakReported = true;
+				leaks.increment();
+				System.err.println("Connection " + entry.id + " held for "
+						+ TimeUnit.NANOSECONDS.toMillis(now - checkedout) + " ms, possible leak");
+				Throwable site = entry.checkoutSite;
+				if (site != null) {
+					site.printStackTrace();
+				}
+			} else if (state == PoolEntry.IDLE && idleTimeoutNanos > 0 && now - entry.lastUsedNanos > idleTimeoutNanos) {
+				evict(entry);
+			}
+		}
+	}
+
+	// Replaces the physical session of an idle entry, the pool keeps its size.
+	private void evict(PoolEntry entry) {
+		// holding a permit keeps the invariant while the entry is RESERVED
+		if (!available.tryAcquire()) {
+			return;
+		}
+		try {
+			if (entry.state.compareAndSet(PoolEntry.IDLE, PoolEntry.RESERVED)) {
+				entry.session.close();
+				entry.session = backend.connect();
+				entry.lastUsedNanos = System.nanoTime();
+				evictions.increment();
+				entry.state.set(PoolEntry.IDLE);
+			}
+		} finally {
+			available.release();
+		}
+	}
+
+	// Load test of checkout latency against the fake backend, usage: java singleton.ConnectionPool [seconds per run]
+	public static void main(String[] args) throws Exception {
+		long seconds = args.length > 0 ? Long.parseLong(args[0]) : 2;
+		FakeBackend backend = new FakeBackend("PostgresSQL", 2_000, 50);
+		try (ConnectionPool pool = new ConnectionPool(backend, 16, 0, 0)) {
+			System.out.printf("%7s %12s %10s %10s %10s %10s %9s%n", "threads", "ops/s", "p50 ns", "p99 ns", "p99.9 ns", "max ns", "timeouts");
+			// first run warms up the JIT and is not reported
+			loadTest(pool, 16, seconds * 500, false);
+			for (int threads : new int[]{16, 64, 128}) {
+				loadTest(pool, threads, seconds * 1_000, true);
+			}
+			System.out.println(pool);
+		}
+
+		// leak detection and idle eviction on a small pool
+		try (ConnectionPool pool = new ConnectionPool(backend, 4, 200, 100)) {
+			PooledConnection leaked = pool.checkout(1, TimeUnit.SECONDS);
+			leaked.execute("SELECT 1");
+			Thread.sleep(500);
+			System.out.println(pool + ", backend sessions opened " + backend.getOpenedSessions());
+		}
+	}
+
+	private static void loadTest(ConnectionPool pool, int threads, long millis, boolean report) throws InterruptedException {
+		long timeoutsbefore = pool.getTimeoutCount();
+		LoadRun.Result result = LOAD.run(threads, TimeUnit.MILLISECONDS.toNanos(millis), (index, deadline, samples) -> {
+			long ops = 0;
+			while (System.nanoTime() < deadline) {
+				long begin = System.nanoTime();
+				try (PooledConnection connection = pool.checkout(100, TimeUnit.MILLISECONDS)) {
+					samples.add(System.nanoTime() - begin);
+					ops++;
+					connection.execute("SELECT 1");
+				} catch (TimeoutException e) {
+					// counted by the pool
+				}
+			}
+			return ops;
+		});
+		if (!report || result.getSampleCount() == 0) {
+			return;
+		}
+		System.out.printf("%7d %,12.0f %10d %10d %10d %10d %9d%n", threads, result.getOperationsPerSecond(), result.percentile(0.50),
+				result.percentile(0.99), result.percentile(0.999), result.percentile(1), pool.getTimeoutCount() - timeoutsbefore);
+	}
+}
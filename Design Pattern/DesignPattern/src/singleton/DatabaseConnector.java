@@ -0,0 +1,48 @@
+package singleton;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Database Connector which connects one time
+class DatabaseConnector {
+	private static final int POOL_SIZE = 16;
+	private static final long CHECKOUT_TIMEOUT_MILLIS = 5_000;
+
+	private String _connectionstring;
+	// The single instance owns the pool, so the whole application shares one set of connections
+	private final ConnectionPool pool;
+
+	// Private Constructor can only be called by Method only
+	private DatabaseConnector(String connectionstring) {
+		this._connectionstring = connectionstring;
+		this.pool = new ConnectionPool(new FakeBackend(connectionstring, 2_000, 50), POOL_SIZE, 60_000, 30_000);
+	}
+
+	// Borrows a connection from the pool, close it to give it back.
+	public PooledConnection getConnection() throws InterruptedException, TimeoutException {
+		return pool.checkout(CHECKOUT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	public ConnectionPool getPool() {
+		return pool;
+	}
+
+	@Override
+	public String toString() {
+		return "DatabaseConnector [_connectionstring=" + _connectionstring + ", pool=" + pool + "]";
+	}
+
+	// Holder class to hold the global static DatabaseConnector. The JVM initializes it on the first getInstance() call,
+	// and class initialization is thread-safe, so no locking is needed here
+	private static final class Holder {
+		static final DatabaseConnector INSTANCE = new DatabaseConnector("PostgresSQL");
+	}
+
+	// Returns the Instance. After initialization this is a plain static field read, no thread ever takes a lock
+	public static DatabaseConnector getInstance() {
+		return Holder.INSTANCE;
+	}
+	
+	
+
+}
@@ -0,0 +1,66 @@
+package singleton;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// In-process stand-in for a database server, connecting and querying just take a fixed time.
+class FakeBackend {
+	private final String connectionstring;
+	private final long connectNanos;
+	private final long queryNanos;
+	private final AtomicInteger opened = new AtomicInteger();
+	private final AtomicInteger open = new AtomicInteger();
+
+	FakeBackend(String connectionstring, long connectMicros, long queryMicros) {
+		this.connectionstring = connectionstring;
+		this.connectNanos = TimeUnit.MICROSECONDS.toNanos(connectMicros);
+		this.queryNanos = TimeUnit.MICROSECONDS.toNanos(queryMicros);
+	}
+
+	// One physical connection to the backend.
+	class Session {
+		private final int id;
+		private volatile boolean closed;
+
+		private Session(int id) {
+			this.id = id;
+		}
+
+		int execute(String sql) {
+			if (closed) {
+				throw new IllegalStateException("Session " + id + " is closed");
+			}
+			LockSupport.parkNanos(queryNanos);
+			return 1;
+		}
+
+		void close() {
+			if (!closed) {
+				closed = true;
+				open.decrementAndGet();
+			}
+		}
+	}
+
+	Session connect() {
+		LockSupport.parkNanos(connectNanos);
+		open.incrementAndGet();
+		return new Session(opened.incrementAndGet());
+	}
+
+	// Sessions currently open.
+	int getOpenSessions() {
+		return open.get();
+	}
+
+	// Sessions opened since the backend started, reconnects included.
+	int getOpenedSessions() {
+		return opened.get();
+	}
+
+	@Override
+	public String toString() {
+		return "FakeBackend [connectionstring=" + connectionstring + ", open=" + open.get() + "]";
+	}
+}
@@ -0,0 +1,27 @@
+package singleton;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// One slot of the pool, owning a physical session which is replaced when it idles too long.
+class PoolEntry {
+	static final int IDLE = 0;
+	static final int IN_USE = 1;
+	// taken by the housekeeper while the physical session is replaced
+	static final int RESERVED = 2;
+
+	final int id;
+	final AtomicInteger state = new AtomicInteger(IDLE);
+
+	volatile FakeBackend.Session session;
+	volatile long lastUsedNanos;
+	volatile long checkedOutNanos;
+	volatile Throwable checkoutSite;
+	volatile boolean leakReported;
+
+	PoolEntry(int id, FakeBackend.Session session) {
+		this.id = id;
+		this.session = session;
+		this.lastUsedNanos = System.nanoTime();
+		this.checkedOutNanos = lastUsedNanos;
+	}
+}
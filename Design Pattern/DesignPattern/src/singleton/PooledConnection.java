@@ -0,0 +1,31 @@
+package singleton;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Connection handed out by the pool, a new one for every checkout. Closing it returns its entry to the pool, so use it
+// with try-with-resources. Only the first close of a checkout counts: a repeated close, or a close through a connection
+// whose entry has since been checked out again, does nothing, and a closed connection can no longer execute.
+class PooledConnection implements AutoCloseable {
+	final PoolEntry entry;
+	private final ConnectionPool pool;
+	private final AtomicBoolean released = new AtomicBoolean();
+
+	PooledConnection(PoolEntry entry, ConnectionPool pool) {
+		this.entry = entry;
+		this.pool = pool;
+	}
+
+	public int execute(String sql) {
+		if (released.get()) {
+			throw new IllegalStateException("Connection " + entry.id + " is closed");
+		}
+		return entry.session.execute(sql);
+	}
+
+	@Override
+	public void close() {
+		if (released.compareAndSet(false, true)) {
+			pool.release(entry);
+		}
+	}
+}
@@ -0,0 +1,362 @@
+package singleton;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// CPU and memory the process may actually use. Inside a container the host core count says little: the cgroup CPU quota
+// (cpu.max on cgroup v2, cpu.cfs_quota_us / cpu.cfs_period_us on v1) caps how many cores' worth of time the process gets,
+// and the cgroup memory limit caps how many threads it can afford.
+class ResourceLimits {
+	private static final Path CGROUP_ROOT = Paths.get("/sys/fs/cgroup");
+
+	final int availableProcessors;
+	// cores worth of CPU time allowed by the cgroup quota, 0 when there is no quota
+	final double cpuQuota;
+	// bytes the process can still allocate before the cgroup (or the machine) runs out
+	final long memoryHeadroom;
+
+	private ResourceLimits(int availableProcessors, double cpuQuota, long memoryHeadroom) {
+		this.availableProcessors = availableProcessors;
+		this.cpuQuota = cpuQuota;
+		this.memoryHeadroom = memoryHeadroom;
+	}
+
+	static ResourceLimits detect() {
+		return new ResourceLimits(Runtime.getRuntime().availableProcessors(), readCpuQuota(), readMemoryHeadroom());
+	}
+
+	// Whole cores the process can keep busy: the quota rounded up, never more than the visible processors.
+	int effectiveCpus() {
+		int cpus = availableProcessors;
+		if (cpuQuota > 0) {
+			cpus = Math.min(cpus, (int) Math.ceil(cpuQuota));
+		}
+		return Math.max(1, cpus);
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof ResourceLimits)) {
+			return false;
+		}
+		ResourceLimits limits = (ResourceLimits) other;
+		// headroom moves all the time, only a shift of 64 MB counts as a change
+		return availableProcessors == limits.availableProcessors && cpuQuota == limits.cpuQuota
+				&& memoryHeadroom >> 26 == limits.memoryHeadroom >> 26;
+	}
+
+	@Override
+	public int hashCode() {
+		return availableProcessors * 31 + Double.hashCode(cpuQuota);
+	}
+
+	@Override
+	public String toString() {
+		return "ResourceLimits [availableProcessors=" + availableProcessors + ", cpuQuota="
+				+ (cpuQuota > 0 ? String.valueOf(cpuQuota) : "none") + ", memoryHeadroom=" + (memoryHeadroom >> 20) + " MB]";
+	}
+
+	// A value which does not parse counts as no quota, detect() runs in the singleton's initializer and must not throw.
+	private static double readCpuQuota() {
+		try {
+			// cgroup v2: "max 100000" or "<quota> <period>"
+			List<String> v2 = readFields(controllerDirectory(""), "cpu.max");
+			if (v2.size() == 2) {
+				return v2.get(0).equals("max") ? 0 : Double.parseDouble(v2.get(0)) / Double.parseDouble(v2.get(1));
+			}
+			// cgroup v1: quota of -1 means unlimited
+			Path v1 = controllerDirectory("cpu");
+			List<String> quota = readFields(v1, "cpu.cfs_quota_us");
+			List<String> period = readFields(v1, "cpu.cfs_period_us");
+			if (quota.size() == 1 && period.size() == 1 && Long.parseLong(quota.get(0)) > 0) {
+				return Double.parseDouble(quota.get(0)) / Double.parseDouble(period.get(0));
+			}
+		} catch (NumberFormatException e) {
+			// malformed cgroup file
+		}
+		return 0;
+	}
+
+	// A value which does not parse counts as no limit, only the free memory of the machine is used then.
+	private static long readMemoryHeadroom() {
+		long limit = Long.MAX_VALUE;
+		long usage = 0;
+		try {
+			List<String> v2limit = readFields(controllerDirectory(""), "memory.max");
+			if (v2limit.size() == 1) {
+				if (!v2limit.get(0).equals("max")) {
+					limit = Long.parseLong(v2limit.get(0));
+					usage = firstLong(readFields(controllerDirectory(""), "memory.current"));
+				}
+			} else {
+				Path v1 = controllerDirectory("memory");
+				List<String> v1limit = readFields(v1, "memory.limit_in_bytes");
+				// v1 reports "no limit" as a huge page-aligned number close to Long.MAX_VALUE
+				if (v1limit.size() == 1 && Long.parseLong(v1limit.get(0)) < (1L << 62)) {
+					limit = Long.parseLong(v1limit.get(0));
+					usage = firstLong(readFields(v1, "memory.usage_in_bytes"));
+				}
+			}
+		} catch (NumberFormatException e) {
+			limit = Long.MAX_VALUE;
+		}
+		long free = ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getFreeMemorySize();
+		return limit == Long.MAX_VALUE ? free : Math.min(free, Math.max(0, limit - usage));
+	}
+
+	// Directory of the controller for this process: its own cgroup if visible, otherwise the mount root,
+	// which is where a container sees its own cgroup. An empty controller means the cgroup v2 unified hierarchy.
+	private static Path controllerDirectory(String controller) {
+		Path mount = controller.isEmpty() ? CGROUP_ROOT : CGROUP_ROOT.resolve(controller);
+		try {
+			for (String line : Files.readAllLines(Paths.get("/proc/self/cgroup"))) {
+				// hierarchy-id:controller-list:path
+				String[] parts = line.split(":", 3);
+				if (parts.length == 3 && List.of(parts[1].split(",")).contains(controller)) {
+					Path own = mount.resolve(parts[2].substring(1));
+					if (Files.isDirectory(own)) {
+						return own;
+					}
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// not Linux or no procfs, fall back to the mount root
+		}
+		return mount;
+	}
+
+	private static List<String> readFields(Path directory, String file) {
+		try {
+			return List.of(Files.readString(directory.resolve(file)).trim().split("\\s+"));
+		} catch (IOException | RuntimeException e) {
+			return List.of();
+		}
+	}
+
+	private static long firstLong(List<String> fields) {
+		return fields.isEmpty() ? 0 : Long.parseLong(fields.get(0));
+	}
+}
+
+// Utilization snapshot of one pool.
+class PoolMetrics {
+	final String name;
+	final int poolSize;
+	final int activeThreads;
+	final int queuedTasks;
+	final long completedTasks;
+	// busy threads over pool size, smoothed over the last samples
+	final double utilization;
+
+	PoolMetrics(String name, int poolSize, int activeThreads, int queuedTasks, long completedTasks, double utilization) {
+		this.name = name;
+		this.poolSize = poolSize;
+		this.activeThreads = activeThreads;
+		this.queuedTasks = queuedTasks;
+		this.completedTasks = completedTasks;
+		this.utilization = utilization;
+	}
+
+	@Override
+	public String toString() {
+		return "PoolMetrics [name=" + name + ", poolSize=" + poolSize + ", active=" + activeThreads + ", queued=" + queuedTasks
+				+ ", completed=" + completedTasks + ", utilization=" + String.format("%.0f%%", utilization * 100) + "]";
+	}
+}
+
+// View of a process-wide pool handed to callers: tasks go through, but the pool belongs to ProcessExecutors, so nobody
+// else can shut it down. Reconfiguring is impossible too, the pool itself is never exposed.
+class SharedExecutorService extends AbstractExecutorService {
+	private final ExecutorService pool;
+
+	SharedExecutorService(ExecutorService pool) {
+		this.pool = pool;
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		pool.execute(command);
+	}
+
+	@Override
+	public void shutdown() {
+		throw new UnsupportedOperationException("Process-wide executor is shared and cannot be shut down");
+	}
+
+	@Override
+	public List<Runnable> shutdownNow() {
+		throw new UnsupportedOperationException("Process-wide executor is shared and cannot be shut down");
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return pool.isShutdown();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		return pool.isTerminated();
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return pool.awaitTermination(timeout, unit);
+	}
+}
+
+// Process-wide executors sized from what the process may really use rather than the host's core count. CPU-bound work gets
+// one thread per core the cgroup quota allows, so containers stop oversubscribing cores they are throttled on. I/O-bound
+// work gets several threads per core, capped so that their stacks fit in a quarter of the memory headroom. A daemon
+// samples pool utilization every second and re-reads the limits every ten, resizing the pools when they change.
+public class ProcessExecutors {
+	private static final int IO_THREADS_PER_CPU = 8;
+	private static final int MAX_IO_THREADS = 256;
+	// default thread stack size on 64-bit HotSpot
+	private static final long THREAD_STACK_BYTES = 1L << 20;
+	private static final long SAMPLE_MILLIS = 1_000;
+	private static final int SAMPLES_PER_RECHECK = 10;
+	// weight of the newest sample in the smoothed utilization
+	private static final double SMOOTHING = 0.3;
+
+	private final ThreadPoolExecutor cpuExecutor;
+	private final ThreadPoolExecutor ioExecutor;
+	private final ExecutorService sharedCpuExecutor;
+	private final ExecutorService sharedIoExecutor;
+	private final ScheduledExecutorService monitor;
+	private volatile ResourceLimits limits;
+	private volatile double cpuUtilization;
+	private volatile double ioUtilization;
+	private int samples;
+
+	// Holder class so that the pools are only started by the first getInstance() call
+	private static final class Holder {
+		static final ProcessExecutors INSTANCE = new ProcessExecutors(ResourceLimits.detect());
+	}
+
+	public static ProcessExecutors getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	private ProcessExecutors(ResourceLimits limits) {
+		this.limits = limits;
+		this.cpuExecutor = newPool("cpu", cpuThreads(limits));
+		this.ioExecutor = newPool("io", ioThreads(limits));
+		this.sharedCpuExecutor = new SharedExecutorService(cpuExecutor);
+		this.sharedIoExecutor = new SharedExecutorService(ioExecutor);
+		this.monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "executor-monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		monitor.scheduleWithFixedDelay(this::sample, SAMPLE_MILLIS, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	// For work that keeps a core busy: computation, parsing, compression. The pool is owned by this class and lives as long
+	// as the process, shutdown() on the returned executor throws.
+	public ExecutorService cpuExecutor() {
+		return sharedCpuExecutor;
+	}
+
+	// For work that mostly waits: blocking sockets, files, database calls. Shared like cpuExecutor().
+	public ExecutorService ioExecutor() {
+		return sharedIoExecutor;
+	}
+
+	public ResourceLimits getLimits() {
+		return limits;
+	}
+
+	public PoolMetrics getCpuMetrics() {
+		return metrics("cpu", cpuExecutor, cpuUtilization);
+	}
+
+	public PoolMetrics getIoMetrics() {
+		return metrics("io", ioExecutor, ioUtilization);
+	}
+
+	// Re-reads the limits now and resizes the pools if they changed. Returns true when the pools were resized.
+	public synchronized boolean recheck() {
+		ResourceLimits current = ResourceLimits.detect();
+		if (current.equals(limits)) {
+			return false;
+		}
+		limits = current;
+		boolean cpuresized = resize(cpuExecutor, cpuThreads(current));
+		boolean ioresized = resize(ioExecutor, ioThreads(current));
+		return cpuresized || ioresized;
+	}
+
+	@Override
+	public String toString() {
+		return "ProcessExecutors [" + limits + ", " + getCpuMetrics() + ", " + getIoMetrics() + "]";
+	}
+
+	static int cpuThreads(ResourceLimits limits) {
+		return limits.effectiveCpus();
+	}
+
+	static int ioThreads(ResourceLimits limits) {
+		int cpus = limits.effectiveCpus();
+		long affordable = limits.memoryHeadroom / 4 / THREAD_STACK_BYTES;
+		long threads = Math.min(Math.min((long) cpus * IO_THREADS_PER_CPU, MAX_IO_THREADS), affordable);
+		return (int) Math.max(cpus, threads);
+	}
+
+	private void sample() {
+		cpuUtilization = smooth(cpuUtilization, cpuExecutor);
+		ioUtilization = smooth(ioUtilization, ioExecutor);
+		if (++samples % SAMPLES_PER_RECHECK == 0) {
+			recheck();
+		}
+	}
+
+	private static double smooth(double previous, ThreadPoolExecutor executor) {
+		double current = (double) executor.getActiveCount() / executor.getMaximumPoolSize();
+		return previous + SMOOTHING * (current - previous);
+	}
+
+	private static PoolMetrics metrics(String name, ThreadPoolExecutor executor, double utilization) {
+		return new PoolMetrics(name, executor.getMaximumPoolSize(), executor.getActiveCount(), executor.getQueue().size(),
+				executor.getCompletedTaskCount(), utilization);
+	}
+
+	private static ThreadPoolExecutor newPool(String name, int threads) {
+		AtomicInteger count = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				r -> {
+					Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		// idle threads exit, so a pool sized for a burst does not keep its stacks forever
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	private static boolean resize(ThreadPoolExecutor executor, int threads) {
+		if (executor.getMaximumPoolSize() == threads) {
+			return false;
+		}
+		// core may never exceed maximum, so the order depends on the direction
+		if (threads > executor.getMaximumPoolSize()) {
+			executor.setMaximumPoolSize(threads);
+			executor.setCorePoolSize(threads);
+		} else {
+			executor.setCorePoolSize(threads);
+			executor.setMaximumPoolSize(threads);
+		}
+		return true;
+	}
+}
@@ -1,10 +1,26 @@
 package singleton;
 
+import java.util.concurrent.Future;
+
 public class RuntimeExample {
-	public static void main(String[] args) {
+	public static void main(String[] args) throws Exception {
 		// The Runtime Library - Each OS contains only one runtime hence we instantiate
 		// only one class.
 		Runtime runtime = Runtime.getRuntime();
 		System.out.println(runtime.availableProcessors());
+
+		// ProcessExecutors is a singleton too: one pair of pools for the whole process, sized from the cgroup limits
+		ProcessExecutors executors = ProcessExecutors.getInstance();
+		System.out.println(executors.getLimits());
+		Future<Long> sum = executors.cpuExecutor().submit(() -> {
+			long total = 0;
+			for (int i = 0; i < 10_000_000; i++) {
+				total += i;
+			}
+			return total;
+		});
+		System.out.println("Sum computed on the CPU pool: " + sum.get());
+		System.out.println(executors.getCpuMetrics());
+		System.out.println(executors.getIoMetrics());
 	}
 }
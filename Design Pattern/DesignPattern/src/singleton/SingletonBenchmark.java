@@ -0,0 +1,55 @@
+package singleton;
+
+import benchmark.LoadRun;
+
+import java.util.function.Supplier;
+
+// Compares the old synchronized getInstance() with the holder-based one from 1 to 32 threads. Each thread calls the
+// accessor in a loop for a fixed time; with the class monitor every call is serialized, with the holder it scales.
+// Usage: java singleton.SingletonBenchmark [milliseconds per run]
+public class SingletonBenchmark {
+	private static final int[] THREADS = { 1, 2, 4, 8, 16, 32 };
+	private static final LoadRun LOAD = new LoadRun("singleton");
+
+	// The accessor as it was before: every call takes the class monitor, even long after initialization
+	private static final class LockedAccess {
+		private static DatabaseConnector instance;
+
+		static synchronized DatabaseConnector getInstance() {
+			if (instance == null) {
+				instance = DatabaseConnector.getInstance();
+			}
+			return instance;
+		}
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		long millis = args.length > 0 ? Long.parseLong(args[0]) : 1_000;
+		DatabaseConnector expected = DatabaseConnector.getInstance();
+
+		System.out.printf("%7s %18s %18s %12s%n", "threads", "synchronized ops/s", "holder ops/s", "speedup");
+		for (int threads : THREADS) {
+			double locked = run(LockedAccess::getInstance, expected, threads, millis);
+			double holder = run(DatabaseConnector::getInstance, expected, threads, millis);
+			System.out.printf("%7d %,18.0f %,18.0f %11.1fx%n", threads, locked, holder, holder / locked);
+		}
+	}
+
+	// Returns the accessor calls per second summed over all threads, measured after a warm-up run.
+	private static double run(Supplier<DatabaseConnector> accessor, DatabaseConnector expected, int threads, long millis)
+			throws InterruptedException {
+		return LOAD.warmedUp(threads, millis * 1_000_000, (index, deadline, samples) -> {
+			long ops = 0;
+			do {
+				// checking the result keeps the JIT from dropping the call
+				for (int i = 0; i < 1_000; i++) {
+					if (accessor.get() != expected) {
+						throw new IllegalStateException("Two DatabaseConnector instances");
+					}
+				}
+				ops += 1_000;
+			} while (System.nanoTime() < deadline);
+			return ops;
+		}).getOperationsPerSecond();
+	}
+}